@@ -0,0 +1,214 @@
+package benchmarks;
+
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+import static java.awt.Color.*;
+
+/**
+ * The scenes the benchmarks run on, taken from the rendering tests so the numbers match the pictures we know
+ */
+public enum CanonicalScene {
+    /**
+     * A transparent sphere holding another sphere, lighted by a spotlight (refractionTwoSpheres)
+     */
+    TWO_SPHERES {
+        @Override
+        Scene create() {
+            Scene scene = new Scene("two spheres");
+            scene.geometries.add(
+                    new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(BLUE))
+                            .setMaterial(new Material().setKD(0.4).setKS(0.3).setShininess(100).setKT(0.3)),
+                    new Sphere(new Point(0, 0, -50), 25d).setEmission(new Color(RED))
+                            .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(100)));
+            scene.lights.add(
+                    new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+                            .setKL(0.0004).setKQ(0.0000006));
+            return scene;
+        }
+
+        @Override
+        Camera.Builder camera() {
+            return Camera.getBuilder().setLocation(new Point(0, 0, 1000)).setDirection(Point.ZERO, Vector.Y)
+                    .setVpDistance(1000).setVpSize(150, 150);
+        }
+    },
+    /**
+     * Two spheres reflected by two mirror triangles (reflectionTwoSpheresMirrored)
+     */
+    MIRRORS {
+        @Override
+        Scene create() {
+            Scene scene = new Scene("mirrors");
+            scene.geometries.add(
+                    new Sphere(new Point(-950, -900, -1000), 400d).setEmission(new Color(0, 50, 100))
+                            .setMaterial(new Material().setKD(0.25).setKS(0.25).setShininess(20)
+                                    .setKT(new Double3(0.5, 0, 0))),
+                    new Sphere(new Point(-950, -900, -1000), 200d).setEmission(new Color(100, 50, 20))
+                            .setMaterial(new Material().setKD(0.25).setKS(0.25).setShininess(20)),
+                    new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                            new Point(670, 670, 3000))
+                            .setEmission(new Color(20, 20, 20))
+                            .setMaterial(new Material().setKR(1)),
+                    new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                            new Point(-1500, -1500, -2000))
+                            .setEmission(new Color(20, 20, 20))
+                            .setMaterial(new Material().setKR(new Double3(0.5, 0, 0.4))));
+            scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+            scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150),
+                    new Vector(-1, -1, -4)).setKL(0.00001).setKQ(0.000005));
+            return scene;
+        }
+
+        @Override
+        Camera.Builder camera() {
+            return Camera.getBuilder().setLocation(new Point(0, 0, 10000)).setDirection(Point.ZERO, Vector.Y)
+                    .setVpDistance(10000).setVpSize(2500, 2500);
+        }
+    },
+    /**
+     * Two triangles with the partial shadow of a transparent sphere (refractionShadow)
+     */
+    TRANSPARENT_SHADOW {
+        @Override
+        Scene create() {
+            Scene scene = new Scene("transparent shadow");
+            scene.geometries.add(
+                    new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+                            .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(60)),
+                    new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150))
+                            .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(60)),
+                    new Sphere(new Point(60, 50, -50), 30d).setEmission(new Color(BLUE))
+                            .setMaterial(new Material().setKD(0.2).setKS(0.2).setShininess(30).setKT(0.6)));
+            scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
+            scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1))
+                    .setKL(4E-5).setKQ(2E-7));
+            return scene;
+        }
+
+        @Override
+        Camera.Builder camera() {
+            return Camera.getBuilder().setLocation(new Point(0, 0, 1000)).setDirection(Point.ZERO, Vector.Y)
+                    .setVpDistance(1000).setVpSize(200, 200);
+        }
+    },
+    /**
+     * About 500 spheres over a reflecting plane with the SAH BVH (the running time test of the mini project)
+     */
+    SPHERE_GRID {
+        @Override
+        Scene create() {
+            return sphereGrid(1);
+        }
+
+        @Override
+        Camera.Builder camera() {
+            return sphereGridCamera();
+        }
+    },
+    /**
+     * The sphere grid with a glossy plane. The plane scatters 20 rays instead of the 300 of the test,
+     * so that a single rendering takes seconds rather than minutes
+     */
+    SPHERE_GRID_GLOSSY {
+        @Override
+        Scene create() {
+            return sphereGrid(20);
+        }
+
+        @Override
+        Camera.Builder camera() {
+            return sphereGridCamera();
+        }
+    };
+
+    /**
+     * Creates the scene
+     *
+     * @return the scene
+     */
+    abstract Scene create();
+
+    /**
+     * Creates a camera builder looking at the scene, without a ray tracer and an image writer
+     *
+     * @return the camera builder
+     */
+    abstract Camera.Builder camera();
+
+    /**
+     * Creates a camera of the scene
+     *
+     * @param resolution the amount of pixels on each side
+     * @param threads    the amount of rendering threads, 0 for rendering without threads
+     * @return the camera
+     */
+    Camera createCamera(int resolution, int threads) {
+        return camera().setRayTracer(new SimpleRayTracer(create()))
+                .setImageWriter(new ImageWriter(name(), resolution, resolution))
+                .setMultithreading(threads)
+                .build();
+    }
+
+    /**
+     * Creates the spheres grid scene
+     *
+     * @param glossyRays amount of the rays scattered by the plane
+     * @return the scene
+     */
+    private static Scene sphereGrid(int glossyRays) {
+        Scene scene = new Scene("sphere grid");
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), new Double3(0.15)));
+        scene.geometries.add(new Plane(new Point(1, 10, 1), new Point(2, 10, 1), new Point(5, 10, 0))
+                .setEmission(new Color(PINK).reduce(3))
+                .setMaterial(new Material().setKD(0.2).setShininess(1000).setKR(0.8).setKS(0.8)
+                        .setBlurGlass(glossyRays, 10, 2)));
+
+        Color red = new Color(RED);
+        Color blue = new Color(BLUE);
+        for (int k = 0; k < SPHERE_ROWS; k++)
+            for (int j = 0; j < SPHERE_COLUMNS; j++)
+                scene.geometries.add(new Sphere(new Point(-4 + j * 3d, 0, -11 + k * 3d), 1d)
+                        .setEmission(k % 2 == 0 ? red : blue)
+                        .setMaterial(new Material().setKD(0.2).setKS(1).setShininess(80)));
+        scene.geometries.setSAHBVH();
+
+        double midX = -4 + (SPHERE_COLUMNS - 1) * 3 / 2d;
+        double midZ = -11 + (SPHERE_ROWS - 1) * 3 / 2d;
+        scene.lights.add(new DirectionalLight(new Color(WHITE).reduce(1.3), new Vector(-0.4, 1, 0)));
+        scene.lights.add(new SpotLight(new Color(WHITE).reduce(2), new Point(20.43303, -7.37104, 13.77329),
+                new Vector(-20.43, 7.37, -13.77)).setKL(0.6));
+        scene.lights.add(new SpotLight(new Color(WHITE), new Point(midX, -200, midZ), new Vector(1, 1, 1)));
+        return scene;
+    }
+
+    /**
+     * Creates the camera builder of the spheres grid scene
+     *
+     * @return the camera builder
+     */
+    private static Camera.Builder sphereGridCamera() {
+        double midX = -4 + (SPHERE_COLUMNS - 1) * 3 / 2d;
+        double midZ = -11 + (SPHERE_ROWS - 1) * 3 / 2d;
+        return Camera.getBuilder().setLocation(new Point(midX, -350, midZ)).setDirection(Vector.Y, Vector.Z)
+                .setVpSize(200, 200).setVpDistance(1000);
+    }
+
+    /**
+     * Rows of the spheres grid
+     */
+    private static final int SPHERE_ROWS = 23;
+    /**
+     * Columns of the spheres grid
+     */
+    private static final int SPHERE_COLUMNS = 22;
+}
@@ -0,0 +1,147 @@
+package benchmarks;
+
+import geometries.Geometries;
+import geometries.Sphere;
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the traversal of a collection of spheres with and without the acceleration structures.
+ * Every operation queries a batch of rays which were generated once with a fixed seed,
+ * some of them hit spheres and some of them pass between them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometriesBenchmark {
+    /**
+     * Amount of rays in a batch
+     */
+    private static final int RAYS = 1024;
+
+    /**
+     * The acceleration of the collection
+     */
+    public enum Acceleration {
+        /**
+         * No bounding boxes, every shape is intersected
+         */
+        NONE,
+        /**
+         * Bounding boxes of the shapes only
+         */
+        CBR,
+        /**
+         * The original BVH tree
+         */
+        BVH,
+        /**
+         * The BVH built by the surface area heuristic
+         */
+        SAH
+    }
+
+    /**
+     * Amount of spheres in the collection
+     */
+    @Param({"100", "1000", "10000"})
+    public int count;
+
+    /**
+     * The acceleration of the collection
+     */
+    @Param
+    public Acceleration acceleration;
+
+    /**
+     * The collection
+     */
+    private Geometries geometries;
+    /**
+     * The batch of rays
+     */
+    private final Ray[] rays = new Ray[RAYS];
+
+    /**
+     * Scatters small spheres in a cube in front of the rays' head, and aims the rays at the cube
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(5784);
+        double size = Math.cbrt(count) * 4;
+        geometries = new Geometries();
+        for (int i = 0; i < count; ++i)
+            geometries.add(new Sphere(new Point(
+                    (random.nextDouble() - 0.5) * size,
+                    (random.nextDouble() - 0.5) * size,
+                    -size - random.nextDouble() * size), 1d));
+        switch (acceleration) {
+            case CBR -> geometries.setCBR();
+            case BVH -> geometries.setBVH();
+            case SAH -> geometries.setSAHBVH();
+            default -> {
+            }
+        }
+
+        Point head = new Point(0, 0, size);
+        for (int i = 0; i < RAYS; ++i) {
+            Point target = new Point(
+                    (random.nextDouble() - 0.5) * size,
+                    (random.nextDouble() - 0.5) * size,
+                    -size * 1.5);
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+    }
+
+    /**
+     * All the intersections of every ray
+     *
+     * @return the amount of intersections
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public int allIntersections() {
+        int found = 0;
+        for (Ray ray : rays) {
+            var points = geometries.findGeoIntersections(ray);
+            if (points != null) found += points.size();
+        }
+        return found;
+    }
+
+    /**
+     * The closest intersection of every ray
+     *
+     * @return the amount of rays with an intersection
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public int closestIntersection() {
+        int found = 0;
+        for (Ray ray : rays)
+            if (geometries.findClosestGeoIntersection(ray) != null) ++found;
+        return found;
+    }
+
+    /**
+     * Whether every ray is blocked, as a shadow ray
+     *
+     * @return the amount of blocked rays
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public int occlusion() {
+        int found = 0;
+        for (Ray ray : rays)
+            if (geometries.isOccluded(ray, Double.POSITIVE_INFINITY)) ++found;
+        return found;
+    }
+}
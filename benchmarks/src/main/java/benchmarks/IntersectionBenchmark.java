@@ -0,0 +1,144 @@
+package benchmarks;
+
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import org.openjdk.jmh.annotations.*;
+import primitives.BoundingBox;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intersection of a single ray with a single shape and with a bounding box.
+ * The shapes have no bounding box, so findGeoIntersections measures the shape's own intersection helper.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntersectionBenchmark {
+    /**
+     * A sphere at the origin
+     */
+    private final Sphere sphere = new Sphere(Point.ZERO, 1d);
+    /**
+     * A triangle on the xy plane around the origin
+     */
+    private final Triangle triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0));
+    /**
+     * The xy plane
+     */
+    private final Plane plane = new Plane(Point.ZERO, new Vector(0, 0, 1));
+    /**
+     * A cube around the origin
+     */
+    private final BoundingBox box = new BoundingBox(-1, 1, -1, 1, -1, 1);
+
+    /**
+     * A ray crossing all the shapes at the origin
+     */
+    private final Ray hit = new Ray(new Point(0.1, 0.2, 5), new Vector(0, 0, -1));
+    /**
+     * A ray passing by all the shapes
+     */
+    private final Ray miss = new Ray(new Point(3, 3, 5), new Vector(0, 0, -1));
+    /**
+     * A ray going along the plane
+     */
+    private final Ray parallel = new Ray(new Point(0, 0, 1), new Vector(1, 0, 0));
+
+    /**
+     * Sphere intersections of a hitting ray
+     *
+     * @return the intersections
+     */
+    @Benchmark
+    public Object sphereHit() {
+        return sphere.findGeoIntersections(hit);
+    }
+
+    /**
+     * Sphere intersections of a missing ray
+     *
+     * @return the intersections
+     */
+    @Benchmark
+    public Object sphereMiss() {
+        return sphere.findGeoIntersections(miss);
+    }
+
+    /**
+     * Closest sphere intersection of a hitting ray
+     *
+     * @return the intersection
+     */
+    @Benchmark
+    public Object sphereClosestHit() {
+        return sphere.findClosestGeoIntersection(hit);
+    }
+
+    /**
+     * Triangle intersections of a hitting ray
+     *
+     * @return the intersections
+     */
+    @Benchmark
+    public Object triangleHit() {
+        return triangle.findGeoIntersections(hit);
+    }
+
+    /**
+     * Triangle intersections of a ray which hits the triangle's plane outside the triangle
+     *
+     * @return the intersections
+     */
+    @Benchmark
+    public Object triangleMiss() {
+        return triangle.findGeoIntersections(miss);
+    }
+
+    /**
+     * Plane intersections of a hitting ray
+     *
+     * @return the intersections
+     */
+    @Benchmark
+    public Object planeHit() {
+        return plane.findGeoIntersections(hit);
+    }
+
+    /**
+     * Plane intersections of a parallel ray
+     *
+     * @return the intersections
+     */
+    @Benchmark
+    public Object planeParallel() {
+        return plane.findGeoIntersections(parallel);
+    }
+
+    /**
+     * Bounding box test of a hitting ray
+     *
+     * @return whether the ray hits the box
+     */
+    @Benchmark
+    public boolean boxHit() {
+        return box.intersectionBox(hit);
+    }
+
+    /**
+     * Bounding box test of a missing ray
+     *
+     * @return whether the ray hits the box
+     */
+    @Benchmark
+    public boolean boxMiss() {
+        return box.intersectionBox(miss);
+    }
+}
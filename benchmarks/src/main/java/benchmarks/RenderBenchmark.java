@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import renderer.Camera;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of rendering whole images of the canonical scenes.
+ * The image is rendered into the image writer's buffer and isn't written to a file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+    /**
+     * The scene
+     */
+    @Param
+    public CanonicalScene scene;
+
+    /**
+     * Amount of pixels on each side of the image
+     */
+    @Param({"100", "400"})
+    public int resolution;
+
+    /**
+     * Amount of rendering threads, 0 renders without threads and -1 uses a thread per processor
+     */
+    @Param({"0", "-1"})
+    public int threads;
+
+    /**
+     * The camera
+     */
+    private Camera camera;
+
+    /**
+     * Creates the camera
+     */
+    @Setup
+    public void setup() {
+        camera = scene.createCamera(resolution,
+                threads == -1 ? Runtime.getRuntime().availableProcessors() : threads);
+    }
+
+    /**
+     * Renders the image
+     *
+     * @return the camera
+     */
+    @Benchmark
+    public Camera renderImage() {
+        return camera.renderImage();
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Ray;
+import renderer.Camera;
+import renderer.SimpleRayTracer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of tracing camera rays through the canonical scenes, without the rendering loop around them.
+ * Every operation traces the rays through the centers of a grid of pixels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TraceRayBenchmark {
+    /**
+     * Amount of pixels on each side of the grid
+     */
+    private static final int GRID = 32;
+
+    /**
+     * The scene
+     */
+    @Param
+    public CanonicalScene scene;
+
+    /**
+     * The ray tracer of the scene
+     */
+    private SimpleRayTracer rayTracer;
+    /**
+     * The rays through the pixels
+     */
+    private final Ray[] rays = new Ray[GRID * GRID];
+
+    /**
+     * Creates the scene and the rays
+     */
+    @Setup
+    public void setup() {
+        rayTracer = new SimpleRayTracer(scene.create());
+        Camera camera = scene.createCamera(GRID, 0);
+        for (int i = 0; i < GRID; ++i)
+            for (int j = 0; j < GRID; ++j)
+                rays[i * GRID + j] = camera.constructRay(GRID, GRID, j, i);
+    }
+
+    /**
+     * Traces all the rays
+     *
+     * @param blackhole consumes the colors
+     */
+    @Benchmark
+    @OperationsPerInvocation(GRID * GRID)
+    public void traceRay(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(rayTracer.traceRay(ray));
+    }
+}
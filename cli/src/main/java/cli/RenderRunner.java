@@ -0,0 +1,269 @@
+package cli;
+
+import geometries.TriangleMesh;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import primitives.*;
+import renderer.AovBuffers;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+import scene.io.MeshLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command line runner which renders a model file (OBJ or binary PLY) to an image in the images folder.
+ * The camera looks at the model from the front (down the z axis, y up) and frames its bounding box.
+ */
+public final class RenderRunner {
+    /**
+     * Usage message
+     */
+    private static final String USAGE = """
+            Usage: render [options] <model.obj|model.ply>
+              -s, --size WIDTHxHEIGHT  image size in pixels (default 800x800)
+              -t, --threads N          rendering threads, 0 renders without threads (default: processors)
+                  --tile N             tile size, 0 hands out single pixels (default 16)
+              -o, --output NAME        image name in the images folder (default: the model file name)
+              -p, --progress SECONDS   progress printing interval, 0 for none (default 0)
+                  --passes N           progressive passes, the image is written after each of them,
+                                       0 renders a single pass (default 0)
+                  --mapped DIR         keep the pixels in a memory mapped file in DIR instead of the heap,
+                                       for images larger than the memory
+                  --aov                also write the depth, normal, albedo and object id buffers
+                                       as NAME_depth.pfm, NAME_normal.pfm, NAME_albedo.pfm and NAME_id.pfm
+            """;
+
+    /**
+     * Distance of the camera from the view plane
+     */
+    private static final double VP_DISTANCE = 1000;
+
+    /**
+     * Image width in pixels
+     */
+    private int width = 800;
+    /**
+     * Image height in pixels
+     */
+    private int height = 800;
+    /**
+     * Amount of rendering threads
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /**
+     * Tile size
+     */
+    private int tile = 16;
+    /**
+     * Image name, null for the model file name
+     */
+    private String output;
+    /**
+     * Progress printing interval in seconds
+     */
+    private double progress = 0;
+    /**
+     * Amount of progressive passes, 0 for a single pass
+     */
+    private int passes = 0;
+    /**
+     * Directory of the memory mapped pixels file, null to keep the pixels in the heap
+     */
+    private Path mapped;
+    /**
+     * Whether to write the auxiliary buffers
+     */
+    private boolean aov = false;
+    /**
+     * The model file
+     */
+    private Path model;
+
+    /**
+     * Don't let anyone instantiate this class from outside.
+     */
+    private RenderRunner() {
+    }
+
+    /**
+     * Renders a model
+     *
+     * @param args the options and the model file, see the usage message
+     */
+    public static void main(String[] args) {
+        RenderRunner runner = new RenderRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        try {
+            runner.run();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * parses the command line
+     *
+     * @param args the command line arguments
+     * @throws IllegalArgumentException if the arguments are wrong
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+            if (!arg.startsWith("-")) {
+                if (model != null) throw new IllegalArgumentException("More than one model file");
+                model = Path.of(arg);
+                continue;
+            }
+            if (arg.equals("--aov")) {
+                aov = true;
+                continue;
+            }
+            if (i + 1 == args.length) throw new IllegalArgumentException("Missing value of " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "-s", "--size" -> {
+                    String[] sizes = value.split("x");
+                    if (sizes.length != 2) throw new IllegalArgumentException("Size should be WIDTHxHEIGHT");
+                    width = positive(sizes[0], arg);
+                    height = positive(sizes[1], arg);
+                }
+                case "-t", "--threads" -> threads = number(value, arg);
+                case "--tile" -> tile = number(value, arg);
+                case "-o", "--output" -> output = value;
+                case "--passes" -> passes = number(value, arg);
+                case "--mapped" -> mapped = Path.of(value);
+                case "-p", "--progress" -> {
+                    try {
+                        progress = Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Illegal value of " + arg + ": " + value);
+                    }
+                    if (progress < 0) throw new IllegalArgumentException("Illegal value of " + arg + ": " + value);
+                }
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (model == null) throw new IllegalArgumentException("Missing model file");
+    }
+
+    /**
+     * parses a non negative integer option value
+     *
+     * @param value the value
+     * @param arg   the option
+     * @return the number
+     * @throws IllegalArgumentException if the value isn't a non negative integer
+     */
+    private static int number(String value, String arg) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 0) return number;
+        } catch (NumberFormatException ignore) {
+        }
+        throw new IllegalArgumentException("Illegal value of " + arg + ": " + value);
+    }
+
+    /**
+     * parses a positive integer option value
+     *
+     * @param value the value
+     * @param arg   the option
+     * @return the number
+     * @throws IllegalArgumentException if the value isn't a positive integer
+     */
+    private static int positive(String value, String arg) {
+        int number = number(value, arg);
+        if (number == 0) throw new IllegalArgumentException("Illegal value of " + arg + ": " + value);
+        return number;
+    }
+
+    /**
+     * loads the model, renders it and writes the image
+     */
+    private void run() {
+        long start = System.nanoTime();
+        TriangleMesh mesh = MeshLoader.load(model);
+        mesh.setMaterial(new Material().setKD(0.6).setKS(0.3).setShininess(40));
+        mesh.setEmission(new Color(30, 30, 30));
+        mesh.setBoundingBox();
+        long loaded = System.nanoTime();
+        System.out.printf("Loaded %d triangles in %d ms%n", mesh.getFaceCount(), (loaded - start) / 1_000_000);
+
+        Scene scene = new Scene(model.getFileName().toString())
+                .setBackground(new Color(20, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.15));
+        scene.geometries.add(mesh);
+        scene.lights.add(new DirectionalLight(new Color(600, 600, 600), new Vector(-1, -1, -2)));
+
+        //frame the model's bounding box from the front
+        BoundingBox box = mesh.getBoundingBox();
+        double extent = Math.max(box.getxMax() - box.getxMin(),
+                Math.max(box.getyMax() - box.getyMin(), box.getzMax() - box.getzMin()));
+        if (extent == 0) extent = 1;
+        double distance = 2 * extent;
+        Point location = new Point((box.getxMin() + box.getxMax()) / 2, (box.getyMin() + box.getyMax()) / 2,
+                box.getzMax() + distance);
+        double vpSize = 1.2 * extent * VP_DISTANCE / distance;
+        double aspect = (double) width / height;
+
+        String name = output != null ? output : stripExtension(model.getFileName().toString());
+        Camera.Builder builder = Camera.getBuilder()
+                .setLocation(location)
+                .setDirection(new Vector(0, 0, -1), Vector.Y)
+                .setVpDistance(VP_DISTANCE)
+                .setVpSize(aspect >= 1 ? vpSize * aspect : vpSize, aspect >= 1 ? vpSize : vpSize / aspect)
+                .setImageWriter(mapped != null ? new ImageWriter(name, width, height, mapped)
+                        : new ImageWriter(name, width, height))
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setMultithreading(threads)
+                .setTileSize(tile)
+                .setDebugPrint(progress);
+        AovBuffers buffers = aov ? new AovBuffers(name, width, height) : null;
+        builder.setAovBuffers(buffers);
+        try {
+            //the image writer writes to the images folder of the working directory
+            Files.createDirectories(Path.of(System.getProperty("user.dir"), "images"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't create the images folder", e);
+        }
+        if (passes == 0) {
+            Camera camera = builder.build().renderImage();
+            System.out.printf("Rendered %dx%d in %d ms%n", width, height, (System.nanoTime() - loaded) / 1_000_000);
+            camera.writeToImage();
+            if (buffers != null) buffers.writeToFiles();
+            return;
+        }
+
+        Camera camera = builder.setProgressive(passes, 0, 0).build();
+        camera.renderProgressive((pass, change) -> {
+            //a preview after every pass
+            camera.writeToImage();
+            //the buffers are complete after the first pass
+            if (buffers != null && pass == 1) buffers.writeToFiles();
+            System.out.printf("Pass %d written after %d ms%n", pass, (System.nanoTime() - loaded) / 1_000_000);
+        });
+    }
+
+    /**
+     * removes the extension of a file name
+     *
+     * @param fileName the file name
+     * @return the name without the extension
+     */
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
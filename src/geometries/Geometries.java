@@ -9,10 +9,41 @@ import java.util.*;
  */
 public class Geometries extends Intersectable {
 
+    /**
+     * All the geometries in the collection.
+     */
+    private final List<Intersectable> geometries = new ArrayList<>();
+
+    /**
+     * The unbounded geometries (planes, tubes) which are left out of the hierarchy and tested one by one,
+     * a hierarchy containing them would have an infinite box in every node on their way
+     */
+    private final List<Intersectable> unbounded = new ArrayList<>();
+
     /**
      * Root node of the BVH tree.
      */
-    private final BVHNode root = new BVHNode();
+    private BVHNode root = new BVHNode(new BoundingBox(), geometries);
+
+    /**
+     * Linear form of the BVH tree used for the traversal, null while there is no tree.
+     */
+    private LinearBVH bvh;
+
+    /**
+     * Maximum number of geometries in a SAH leaf
+     */
+    private int sahLeafSize = 4;
+
+    /**
+     * SAH cost of traversing an inner node
+     */
+    private double sahTraversalCost = 0.125;
+
+    /**
+     * SAH cost of intersecting a single geometry
+     */
+    private double sahIntersectionCost = 1;
 
     /**
      * Constructs an empty Geometries object.
@@ -35,20 +66,75 @@ public class Geometries extends Intersectable {
      * @param geometries group of shapes
      */
     public void add(Intersectable... geometries) {
-        root.geometries.addAll(Arrays.asList(geometries));
+        this.geometries.addAll(Arrays.asList(geometries));
+        //a built hierarchy doesn't know the new shapes
+        bvh = null;
+    }
+
+    /**
+     * Lists the geometries of the group and of its nested groups, in the order they were added
+     *
+     * @return the geometries
+     */
+    public List<Geometry> flatten() {
+        List<Geometry> flat = new ArrayList<>();
+        for (Intersectable geo : geometries)
+            if (geo instanceof Geometries group)
+                flat.addAll(group.flatten());
+            else if (geo instanceof Geometry geometry)
+                flat.add(geometry);
+        return flat;
     }
 
     @Override
     public void setBoundingBox() {
-        for (Intersectable geo : root.geometries)
-            root.boundingBox.expandToInclude(geo.getBoundingBox());
+        for (Intersectable geo : geometries)
+            if (isBounded(geo))
+                root.boundingBox.expandToInclude(geo.getBoundingBox());
+    }
+
+    /**
+     * Checks whether a geometry has a finite bounding box
+     *
+     * @param geometry the geometry, its bounding box should be set
+     * @return true if the geometry is bounded
+     */
+    private static boolean isBounded(Intersectable geometry) {
+        return geometry.boundingBox != null && geometry.boundingBox.isBounded();
+    }
+
+    /**
+     * Sets the bounding boxes of all the geometries and splits them between
+     * the unbounded list and the returned list of the bounded ones
+     *
+     * @return the bounded geometries
+     */
+    private List<Intersectable> splitUnbounded() {
+        for (var geo : geometries)
+            geo.setBoundingBox();
+        unbounded.clear();
+        List<Intersectable> bounded = new ArrayList<>(geometries.size());
+        for (var geo : geometries)
+            (isBounded(geo) ? bounded : unbounded).add(geo);
+        return bounded;
+    }
+
+    /**
+     * Creates an empty box, which any expansion replaces
+     *
+     * @return the box
+     */
+    private static BoundingBox emptyBox() {
+        return new BoundingBox(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
     }
 
     /**
      * Sets the bounding boxes for all intersectional in the list.
      */
     public void setCBR() {
-        for (var geo : root.geometries)
+        for (var geo : geometries)
             geo.setBoundingBox();
         setBoundingBox();
     }
@@ -57,10 +143,64 @@ public class Geometries extends Intersectable {
      * Constructs the BVH tree for the geometries.
      */
     public void setBVH() {
-        //set CBR for all shapes
-        setCBR();
+        //set CBR for all shapes, the unbounded ones stay out of the tree
+        List<Intersectable> bounded = splitUnbounded();
+        root = new BVHNode(emptyBox(), bounded);
         //set bounding box for root
+        setBoundingBox();
         buildBVH(root, 0);
+        bvh = new LinearBVH(root);
+    }
+
+    /**
+     * Counts the nodes of the hierarchy
+     *
+     * @return the number of nodes, 0 without a hierarchy
+     */
+    int getBVHNodeCount() {
+        return bvh == null ? 0 : bvh.getNodeCount();
+    }
+
+    /**
+     * Sets the parameters of the SAH builder
+     *
+     * @param leafSize         the maximum number of geometries in a leaf
+     * @param traversalCost    the cost of traversing an inner node
+     * @param intersectionCost the cost of intersecting a single geometry
+     * @return the Geometries itself
+     * @throws IllegalArgumentException if leaf size isn't positive or a cost is negative
+     */
+    public Geometries setSAHParameters(int leafSize, double traversalCost, double intersectionCost) {
+        if (leafSize < 1 || traversalCost < 0 || intersectionCost <= 0)
+            throw new IllegalArgumentException("Illegal argument in setSAHParameters");
+        this.sahLeafSize = leafSize;
+        this.sahTraversalCost = traversalCost;
+        this.sahIntersectionCost = intersectionCost;
+        return this;
+    }
+
+    /**
+     * Constructs the BVH tree for the geometries using the surface area heuristic.
+     */
+    public void setSAHBVH() {
+        //set CBR for all shapes, the unbounded ones stay out of the tree
+        List<Intersectable> bounded = splitUnbounded();
+        root = new BVHNode(emptyBox(), bounded);
+        setBoundingBox();
+        bvh = null;
+        if (bounded.isEmpty()) return;
+        double[] boxes = new double[6 * bounded.size()];
+        for (int i = 0; i < bounded.size(); ++i) {
+            BoundingBox box = bounded.get(i).boundingBox;
+            boxes[6 * i] = box.getxMin();
+            boxes[6 * i + 1] = box.getyMin();
+            boxes[6 * i + 2] = box.getzMin();
+            boxes[6 * i + 3] = box.getxMax();
+            boxes[6 * i + 4] = box.getyMax();
+            boxes[6 * i + 5] = box.getzMax();
+        }
+        var builder = new SAHBuilder(sahLeafSize, sahTraversalCost, sahIntersectionCost).build(boxes);
+        bvh = new LinearBVH(builder, bounded);
     }
 
     /**
@@ -77,59 +217,94 @@ public class Geometries extends Intersectable {
     private void buildBVH(BVHNode parent, int depth) {
         parent.boundingBox.setCenter();
 
-        if (depth >= maxDepth) return;
-
-        parent.childA = new BVHNode();
-        parent.childB = new BVHNode();
+        if (depth >= maxDepth || parent.geometries.size() < 2) return;
 
+        //the children's boxes grow from empty ones around their geometries
+        BVHNode childA = new BVHNode(emptyBox(), new ArrayList<>());
+        BVHNode childB = new BVHNode(emptyBox(), new ArrayList<>());
         for (Intersectable geometry : parent.geometries) {
             boolean inA = geometry.boundingBox.getCenter().getX() < parent.boundingBox.getCenter().getX();
-            BVHNode child = inA ? parent.childA : parent.childB;
+            BVHNode child = inA ? childA : childB;
             child.geometries.add(geometry);
             child.boundingBox.expandToInclude(geometry.boundingBox);
         }
+        //a split that leaves a side empty doesn't divide the node, it stays a leaf
+        if (childA.geometries.isEmpty() || childB.geometries.isEmpty()) return;
 
-        buildBVH(parent.childA, depth + 1);
-        buildBVH(parent.childB, depth + 1);
+        parent.childA = childA;
+        parent.childB = childB;
+        parent.geometries = null;
+        buildBVH(childA, depth + 1);
+        buildBVH(childB, depth + 1);
     }
 
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        return findGeoIntersectionsHelper(ray, root, maxDistance);
+        //without a hierarchy all the geometries are tested one by one, with it only the unbounded ones
+        List<GeoPoint> intersections = null;
+        for (Intersectable geometry : bvh == null ? geometries : unbounded) {
+            var points = geometry.findGeoIntersections(ray, maxDistance);
+            if (points != null) {
+                if (intersections == null) intersections = new LinkedList<>();
+                intersections.addAll(points);
+            }
+        }
+        if (bvh == null) return intersections;
+
+        var points = bvh.findGeoIntersections(ray, maxDistance);
+        if (points == null) return intersections;
+        if (intersections == null) return points;
+        intersections.addAll(points);
+        return intersections;
     }
 
-    /**
-     * Recursively finds intersections between a ray and geometries in the BVH tree.
-     *
-     * @param ray         the ray
-     * @param node        the current BVH node
-     * @param maxDistance the maximum distance to check for intersections
-     * @return a list of intersection points
-     */
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, BVHNode node, double maxDistance) {
-
-        if (node.boundingBox != null && !node.boundingBox.intersectionBox(ray))
-            return null;
-
-        if (node.geometries != null) {//leaf
-            List<GeoPoint> intersectionsPoints = new LinkedList<>();
-            for (Intersectable geom : node.geometries) {
-                List<GeoPoint> itemIntersections = geom.findGeoIntersections(ray, maxDistance);
-                if (itemIntersections != null) {
-                    intersectionsPoints.addAll(itemIntersections);
-                }
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        //every hit shortens the distance left for the rest of the geometries,
+        //so the unbounded ones go first and the hierarchy traversal gets the shortest distance
+        GeoPoint closest = null;
+        for (Intersectable geometry : bvh == null ? geometries : unbounded) {
+            GeoPoint point = geometry.findClosestGeoIntersection(ray, maxDistance);
+            if (point != null) {
+                closest = point;
+                maxDistance = ray.getHead().distance(point.point);
             }
-            return intersectionsPoints.isEmpty() ? null : intersectionsPoints;
-
-        } else {//not leaf
-            List<GeoPoint> leftIntersections = findGeoIntersectionsHelper(ray, node.childA, maxDistance);
-            List<GeoPoint> rightIntersections = findGeoIntersectionsHelper(ray, node.childB, maxDistance);
-            if (leftIntersections == null) return rightIntersections;
-            if (rightIntersections == null) return leftIntersections;
-            leftIntersections.addAll(rightIntersections);
-            return leftIntersections;
         }
+        if (bvh == null) return closest;
+
+        GeoPoint point = bvh.findClosestGeoIntersection(ray, maxDistance);
+        return point != null ? point : closest;
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        for (Intersectable geometry : bvh == null ? geometries : unbounded)
+            if (geometry.isOccluded(ray, maxDistance))
+                return true;
+        return bvh != null && bvh.isOccluded(ray, maxDistance);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 minK) {
+        Double3 ktr = Double3.ONE;
+        for (Intersectable geometry : bvh == null ? geometries : unbounded) {
+            ktr = ktr.product(geometry.findTransparency(ray, maxDistance, minK));
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        if (bvh == null) return ktr;
+
+        ktr = ktr.product(bvh.findTransparency(ray, maxDistance, minK));
+        return ktr.lowerThan(minK) ? Double3.ZERO : ktr;
+    }
+
+    @Override
+    protected boolean isOpaque() {
+        for (Intersectable geometry : geometries)
+            if (!geometry.isOpaque())
+                return false;
+        return true;
     }
 
     /**
@@ -139,19 +314,19 @@ public class Geometries extends Intersectable {
         /**
          * Bounding box for children.
          */
-        private BoundingBox boundingBox;
+        BoundingBox boundingBox;
         /**
          * Node's left child.
          */
-        private BVHNode childA;
+        BVHNode childA;
         /**
          * Node's right child.
          */
-        private BVHNode childB;
+        BVHNode childB;
         /**
          * Node's list of geometries.
          */
-        private List<Intersectable> geometries;
+        List<Intersectable> geometries;
 
         /**
          * Constructor empty.
@@ -1,8 +1,10 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
 /**
@@ -38,6 +40,16 @@ public abstract class Geometry extends Intersectable {
         return material;
     }
 
+    /**
+     * Provides the geometry which an intersection with this geometry belongs to as a whole,
+     * e.g. the mesh of a face
+     *
+     * @return the geometry itself
+     */
+    public Geometry getOwner() {
+        return this;
+    }
+
     /**
      * set Emission
      *
@@ -60,6 +72,19 @@ public abstract class Geometry extends Intersectable {
         return this;
     }
 
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 minK) {
+        //a single intersection is enough to block the light
+        if (material.kT.lowerThan(minK))
+            return isOccludedHelper(ray, maxDistance) ? Double3.ZERO : Double3.ONE;
+        return super.findTransparencyHelper(ray, maxDistance, minK);
+    }
+
+    @Override
+    protected boolean isOpaque() {
+        return material.kT.equals(Double3.ZERO);
+    }
+
     /**
      * returns the normal to the geometry at the given point
      *
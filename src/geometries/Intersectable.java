@@ -1,6 +1,7 @@
 package geometries;
 
 import primitives.BoundingBox;
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
@@ -106,6 +107,112 @@ public abstract class Intersectable {
         return findGeoIntersectionsHelper(ray, maxDistance);
     }
 
+    /**
+     * find the closest GeoPoint that intersects with a ray
+     *
+     * @param ray intersecting ray
+     * @return the closest point and shape, null if there is none
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersectionHelper(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * find the closest GeoPoint that intersects with a ray limited by max distance
+     *
+     * @param ray         intersecting ray
+     * @param maxDistance the given maximum distance
+     * @return the closest point and shape, null if there is none
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        if (boundingBox != null && !boundingBox.intersectionBox(ray))
+            return null;
+        return findClosestGeoIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * A helper method to find the closest Geo Intersection.
+     * Shapes that can find it without building the list of all the intersections should override it.
+     *
+     * @param ray         intersecting ray
+     * @param maxDistance the given maximum distance
+     * @return the closest point and shape, null if there is none
+     */
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        return ray.findClosestGeoPoint(findGeoIntersectionsHelper(ray, maxDistance));
+    }
+
+    /**
+     * checks whether anything intersects with a ray within max distance
+     *
+     * @param ray         intersecting ray
+     * @param maxDistance the given maximum distance
+     * @return true if there is an intersection
+     */
+    public final boolean isOccluded(Ray ray, double maxDistance) {
+        if (boundingBox != null && !boundingBox.intersectionBox(ray))
+            return false;
+        return isOccludedHelper(ray, maxDistance);
+    }
+
+    /**
+     * A helper method to check whether anything intersects with a ray
+     *
+     * @param ray         intersecting ray
+     * @param maxDistance the given maximum distance
+     * @return true if there is an intersection
+     */
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return findClosestGeoIntersectionHelper(ray, maxDistance) != null;
+    }
+
+    /**
+     * calculates the transparency of everything a ray crosses within max distance -
+     * the product of the transparency factors at all the intersections.
+     * The calculation stops as soon as the product is lower than the given minimum.
+     *
+     * @param ray         intersecting ray
+     * @param maxDistance the given maximum distance
+     * @param minK        the minimum transparency worth calculating
+     * @return the transparency, zero if it is lower than the minimum
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, Double3 minK) {
+        if (boundingBox != null && !boundingBox.intersectionBox(ray))
+            return Double3.ONE;
+        return findTransparencyHelper(ray, maxDistance, minK);
+    }
+
+    /**
+     * A helper method to calculate the transparency along a ray
+     *
+     * @param ray         intersecting ray
+     * @param maxDistance the given maximum distance
+     * @param minK        the minimum transparency worth calculating
+     * @return the transparency, zero if it is lower than the minimum
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 minK) {
+        var intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        if (intersections == null)
+            return Double3.ONE;
+
+        Double3 ktr = Double3.ONE;
+        for (GeoPoint p : intersections) {
+            ktr = ktr.product(p.geometry.getMaterial().kT);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
+
+    /**
+     * checks whether nothing ever passes through the shape
+     *
+     * @return true if the shape is opaque
+     */
+    protected boolean isOpaque() {
+        return false;
+    }
+
     /**
      * A helper method to find Geo Intersections
      *
@@ -0,0 +1,409 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.isZero;
+
+/**
+ * Linearized form of a BVH tree. The nodes are kept in depth first order in flat arrays,
+ * so a traversal walks arrays with an explicit stack instead of chasing node objects.
+ */
+class LinearBVH {
+    /**
+     * Value of the count slot that marks an inner node
+     */
+    static final int INNER = -1;
+
+    /**
+     * Bounds of the nodes, six values per node: xMin, yMin, zMin, xMax, yMax, zMax
+     */
+    private final double[] bounds;
+    /**
+     * Two values per node.
+     * A leaf holds the offset of its first geometry and the amount of its geometries,
+     * an inner node holds the index of its second child (the first child follows it) and {@link #INNER}
+     */
+    private final int[] nodes;
+    /**
+     * The geometries of all the leaves, every leaf owns a continuous range
+     */
+    private final Intersectable[] geometries;
+    /**
+     * Size of the traversal stack
+     */
+    private final int stackSize;
+    /**
+     * Whether all the geometries are opaque, so any intersection blocks the light completely
+     */
+    private final boolean opaque;
+
+    /**
+     * Compiles a BVH tree into its linear form
+     *
+     * @param root the root of the tree
+     */
+    LinearBVH(Geometries.BVHNode root) {
+        int[] counts = new int[3]; // nodes, geometries, depth
+        count(root, 0, counts);
+        bounds = new double[6 * counts[0]];
+        nodes = new int[2 * counts[0]];
+        geometries = new Intersectable[counts[1]];
+        stackSize = counts[2] + 2;
+        flatten(root, 0, 0);
+        opaque = allOpaque(geometries);
+    }
+
+    /**
+     * Creates the linear form from a tree built by {@link SAHBuilder}
+     *
+     * @param builder    the builder after building the tree over the boxes of the geometries
+     * @param geometries the geometries in the order of their boxes
+     */
+    LinearBVH(SAHBuilder builder, List<Intersectable> geometries) {
+        bounds = builder.getBounds();
+        nodes = builder.getNodes();
+        stackSize = builder.getDepth() + 2;
+        int[] order = builder.getOrder();
+        this.geometries = new Intersectable[order.length];
+        for (int i = 0; i < order.length; ++i)
+            this.geometries[i] = geometries.get(order[i]);
+        opaque = allOpaque(this.geometries);
+    }
+
+    /**
+     * checks whether all the geometries are opaque
+     *
+     * @param geometries the geometries
+     * @return true if all of them are opaque
+     */
+    private static boolean allOpaque(Intersectable[] geometries) {
+        for (Intersectable geometry : geometries)
+            if (!geometry.isOpaque()) return false;
+        return true;
+    }
+
+    /**
+     * counts the nodes, the geometries and the depth of a tree
+     *
+     * @param node   the current node
+     * @param depth  the depth of the current node
+     * @param counts nodes, geometries and depth counters
+     */
+    private static void count(Geometries.BVHNode node, int depth, int[] counts) {
+        ++counts[0];
+        if (depth > counts[2]) counts[2] = depth;
+        if (node.childA == null) {
+            counts[1] += node.geometries.size();
+            return;
+        }
+        count(node.childA, depth + 1, counts);
+        count(node.childB, depth + 1, counts);
+    }
+
+    /**
+     * writes a node and its sub tree into the arrays
+     *
+     * @param node     the node to write
+     * @param index    the index of the node
+     * @param geometry the offset of the next free geometry slot
+     * @return the index after the last node of the sub tree and the next free geometry slot
+     */
+    private long flatten(Geometries.BVHNode node, int index, int geometry) {
+        var box = node.boundingBox;
+        int b = 6 * index;
+        bounds[b] = box.getxMin();
+        bounds[b + 1] = box.getyMin();
+        bounds[b + 2] = box.getzMin();
+        bounds[b + 3] = box.getxMax();
+        bounds[b + 4] = box.getyMax();
+        bounds[b + 5] = box.getzMax();
+
+        if (node.childA == null) { //leaf
+            nodes[2 * index] = geometry;
+            nodes[2 * index + 1] = node.geometries.size();
+            for (Intersectable item : node.geometries)
+                geometries[geometry++] = item;
+            return pack(index + 1, geometry);
+        }
+
+        long next = flatten(node.childA, index + 1, geometry);
+        nodes[2 * index] = (int) (next >>> 32);
+        nodes[2 * index + 1] = INNER;
+        return flatten(node.childB, (int) (next >>> 32), (int) next);
+    }
+
+    /**
+     * Get the number of nodes
+     *
+     * @return the number of nodes
+     */
+    int getNodeCount() {
+        return nodes.length / 2;
+    }
+
+    /**
+     * packs a node index and a geometry offset into one value
+     *
+     * @param index    the node index
+     * @param geometry the geometry offset
+     * @return the packed value
+     */
+    private static long pack(int index, int geometry) {
+        return (long) index << 32 | geometry;
+    }
+
+    /**
+     * Finds the intersections of a ray with the geometries
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance of the intersections
+     * @return list of points and shapes, null if there are none
+     */
+    List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
+        double[] origin = origin(ray);
+        double[] inverse = inverseDirection(ray);
+
+        List<GeoPoint> intersections = null;
+        int[] stack = new int[stackSize];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(bounds, node, origin, inverse, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+
+            int count = nodes[2 * node + 1];
+            if (count == INNER) {
+                stack[top++] = nodes[2 * node];
+                stack[top++] = node + 1;
+                continue;
+            }
+
+            for (int i = nodes[2 * node], end = i + count; i < end; ++i) {
+                var points = geometries[i].findGeoIntersections(ray, maxDistance);
+                if (points != null) {
+                    if (intersections == null) intersections = new LinkedList<>();
+                    intersections.addAll(points);
+                }
+            }
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the geometries.
+     * The children are visited front to back, and every hit shortens the distance
+     * so that nodes which the ray enters beyond the closest hit are skipped.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance of the intersection
+     * @return the closest point and shape, null if there is none
+     */
+    GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        double[] origin = origin(ray);
+        double[] inverse = inverseDirection(ray);
+
+        double rootEntry = entry(bounds, 0, origin, inverse, maxDistance);
+        if (rootEntry == Double.POSITIVE_INFINITY)
+            return null;
+
+        GeoPoint closest = null;
+        int[] stack = new int[stackSize];
+        double[] entries = new double[stackSize];
+        int top = 0;
+        stack[top] = 0;
+        entries[top++] = rootEntry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > maxDistance)
+                continue;
+
+            int count = nodes[2 * node + 1];
+            if (count == INNER) {
+                int near = node + 1;
+                int far = nodes[2 * node];
+                double tNear = entry(bounds, near, origin, inverse, maxDistance);
+                double tFar = entry(bounds, far, origin, inverse, maxDistance);
+                if (tNear > tFar) {
+                    int tempNode = near;
+                    near = far;
+                    far = tempNode;
+                    double temp = tNear;
+                    tNear = tFar;
+                    tFar = temp;
+                }
+                //the nearer child is pushed last so it is visited first
+                if (tFar != Double.POSITIVE_INFINITY) {
+                    stack[top] = far;
+                    entries[top++] = tFar;
+                }
+                if (tNear != Double.POSITIVE_INFINITY) {
+                    stack[top] = near;
+                    entries[top++] = tNear;
+                }
+                continue;
+            }
+
+            for (int i = nodes[2 * node], end = i + count; i < end; ++i) {
+                GeoPoint point = geometries[i].findClosestGeoIntersection(ray, maxDistance);
+                if (point != null) {
+                    closest = point;
+                    maxDistance = ray.getHead().distance(point.point);
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Checks whether any geometry intersects with a ray, the traversal stops at the first intersection
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance of the intersection
+     * @return true if there is an intersection
+     */
+    boolean isOccluded(Ray ray, double maxDistance) {
+        double[] origin = origin(ray);
+        double[] inverse = inverseDirection(ray);
+
+        int[] stack = new int[stackSize];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(bounds, node, origin, inverse, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+
+            int count = nodes[2 * node + 1];
+            if (count == INNER) {
+                stack[top++] = nodes[2 * node];
+                stack[top++] = node + 1;
+                continue;
+            }
+
+            for (int i = nodes[2 * node], end = i + count; i < end; ++i)
+                if (geometries[i].isOccluded(ray, maxDistance))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the transparency of the geometries along a ray,
+     * the traversal stops as soon as the transparency is lower than the given minimum.
+     * When all the geometries are opaque it is enough to look for any intersection.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance of the intersections
+     * @param minK        the minimum transparency worth calculating
+     * @return the transparency, zero if it is lower than the minimum
+     */
+    Double3 findTransparency(Ray ray, double maxDistance, Double3 minK) {
+        if (opaque)
+            return isOccluded(ray, maxDistance) ? Double3.ZERO : Double3.ONE;
+
+        double[] origin = origin(ray);
+        double[] inverse = inverseDirection(ray);
+
+        Double3 ktr = Double3.ONE;
+        int[] stack = new int[stackSize];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(bounds, node, origin, inverse, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+
+            int count = nodes[2 * node + 1];
+            if (count == INNER) {
+                stack[top++] = nodes[2 * node];
+                stack[top++] = node + 1;
+                continue;
+            }
+
+            for (int i = nodes[2 * node], end = i + count; i < end; ++i) {
+                ktr = ktr.product(geometries[i].findTransparency(ray, maxDistance, minK));
+                if (ktr.lowerThan(minK))
+                    return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * gets the head of a ray as an array
+     *
+     * @param ray the ray
+     * @return x, y and z of the head
+     */
+    static double[] origin(Ray ray) {
+        Point head = ray.getHead();
+        return new double[]{head.getX(), head.getY(), head.getZ()};
+    }
+
+    /**
+     * calculates the inverse of the direction of a ray, an axis which the ray is parallel to gets infinity
+     *
+     * @param ray the ray
+     * @return the inverse of x, y and z of the direction
+     */
+    static double[] inverseDirection(Ray ray) {
+        Vector direction = ray.getDirection();
+        return new double[]{inverse(direction.getX()), inverse(direction.getY()), inverse(direction.getZ())};
+    }
+
+    /**
+     * calculates the inverse of a direction component
+     *
+     * @param d the direction component
+     * @return 1/d, or infinity if d is zero
+     */
+    private static double inverse(double d) {
+        return isZero(d) ? Double.POSITIVE_INFINITY : 1 / d;
+    }
+
+    /**
+     * Calculates the distance in which a ray enters the box of a node (slab test)
+     *
+     * @param bounds      bounds of the nodes, six values per node
+     * @param node        the node index
+     * @param origin      the head of the ray
+     * @param inverse     the inverse direction of the ray
+     * @param maxDistance the maximum distance
+     * @return the entry distance, or positive infinity if the ray misses the box within the distance
+     */
+    static double entry(double[] bounds, int node, double[] origin, double[] inverse, double maxDistance) {
+        int b = 6 * node;
+        double tNear = 0;
+        double tFar = maxDistance;
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = bounds[b + axis];
+            double max = bounds[b + 3 + axis];
+            double o = origin[axis];
+            double inv = inverse[axis];
+            if (inv == Double.POSITIVE_INFINITY) {
+                // The ray is parallel to the axis
+                if (o < min || o > max) return Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double t1 = (min - o) * inv;
+            double t2 = (max - o) * inv;
+            if (t1 > t2) {
+                double temp = t1;
+                t1 = t2;
+                t2 = temp;
+            }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return Double.POSITIVE_INFINITY;
+        }
+        return tNear;
+    }
+}
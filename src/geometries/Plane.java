@@ -74,18 +74,33 @@ public class Plane extends Geometry {
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double t = intersect(ray, maxDistance);
+        return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
+
+    /**
+     * Calculates the intersection of a ray with the plane without creating any object
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance
+     * @return the distance of the intersection, positive infinity if there is none
+     */
+    double intersect(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
 
         //in case p=q
-        if (q.equals(ray.getHead())) return null;
+        if (q.equals(head)) return Double.POSITIVE_INFINITY;
 
         //check if denominator = 0
         double nv = normal.dotProduct(ray.getDirection());
-        if (isZero(nv)) return null;
+        if (isZero(nv)) return Double.POSITIVE_INFINITY;
 
-        //Calculate point t - where the ray hits the plane
-        double t = (normal.dotProduct((q.subtract(ray.getHead())))) / nv;
+        //Calculate point t - where the ray hits the plane, n * (q - p) / nv
+        double t = (normal.getX() * (q.getX() - head.getX())
+                + normal.getY() * (q.getY() - head.getY())
+                + normal.getZ() * (q.getZ() - head.getZ())) / nv;
 
         //there are points hitting the plane OR there aren't
-        return alignZero(t) > 0 && alignZero(t - maxDistance) < 0 ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
+        return alignZero(t) > 0 && alignZero(t - maxDistance) < 0 ? t : Double.POSITIVE_INFINITY;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,353 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * Builds a BVH with a binned surface area heuristic over all three axes.
+ * The items are given by their bounding boxes only, and the tree is written directly
+ * in the linear layout of {@link LinearBVH}: the nodes in depth first order,
+ * every inner node followed by its first child.
+ */
+class SAHBuilder {
+    /**
+     * Number of bins per axis
+     */
+    private static final int BINS = 12;
+
+    /**
+     * Maximum number of items in a leaf
+     */
+    private final int leafSize;
+    /**
+     * Cost of traversing an inner node
+     */
+    private final double traversalCost;
+    /**
+     * Cost of intersecting a single item
+     */
+    private final double intersectionCost;
+
+    /**
+     * Bounding boxes of the items, six values per item: xMin, yMin, zMin, xMax, yMax, zMax
+     */
+    private double[] boxes;
+    /**
+     * Centers of the bounding boxes of the items, three values per item
+     */
+    private double[] centroids;
+    /**
+     * The items in the order of the leaves
+     */
+    private int[] order;
+    /**
+     * Bounds of the nodes, six values per node
+     */
+    private double[] bounds;
+    /**
+     * Two values per node, see {@link LinearBVH}
+     */
+    private int[] nodes;
+    /**
+     * Number of nodes built so far
+     */
+    private int nodeCount;
+    /**
+     * Depth of the tree
+     */
+    private int depth;
+
+    /**
+     * Minimum centroid coordinates of the node.
+     * This and the following arrays are reused by all the nodes, a node is done with them before its children are built
+     */
+    private final double[] cMin = new double[3];
+    /**
+     * Maximum centroid coordinates of the node
+     */
+    private final double[] cMax = new double[3];
+    /**
+     * Factors which turn a centroid coordinate into its bin
+     */
+    private final double[] binScale = new double[3];
+    /**
+     * Amount of items in every bin of every axis
+     */
+    private final int[] counts = new int[3 * BINS];
+    /**
+     * Bounds of the items in every bin of every axis, six values per bin
+     */
+    private final double[] binBounds = new double[6 * 3 * BINS];
+    /**
+     * Accumulated bounds of the sweeps
+     */
+    private final double[] acc = new double[6];
+    /**
+     * Area of the right side of every split of the current axis
+     */
+    private final double[] rightArea = new double[BINS];
+    /**
+     * Amount of items in the right side of every split of the current axis
+     */
+    private final int[] rightCount = new int[BINS];
+
+    /**
+     * Creates a builder
+     *
+     * @param leafSize         the maximum number of items in a leaf
+     * @param traversalCost    the cost of traversing an inner node
+     * @param intersectionCost the cost of intersecting a single item
+     */
+    SAHBuilder(int leafSize, double traversalCost, double intersectionCost) {
+        this.leafSize = leafSize;
+        this.traversalCost = traversalCost;
+        this.intersectionCost = intersectionCost;
+    }
+
+    /**
+     * Builds the tree
+     *
+     * @param boxes bounding boxes of the items, six values per item: xMin, yMin, zMin, xMax, yMax, zMax
+     * @return the builder itself
+     */
+    SAHBuilder build(double[] boxes) {
+        int count = boxes.length / 6;
+        this.boxes = boxes;
+        centroids = new double[3 * count];
+        order = new int[count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; ++axis)
+                centroids[3 * i + axis] = (boxes[6 * i + axis] + boxes[6 * i + 3 + axis]) / 2d;
+        }
+        int maxNodes = Math.max(1, 2 * count - 1);
+        bounds = new double[6 * maxNodes];
+        nodes = new int[2 * maxNodes];
+        nodeCount = 0;
+        depth = 0;
+
+        build(0, count, 0);
+
+        bounds = Arrays.copyOf(bounds, 6 * nodeCount);
+        nodes = Arrays.copyOf(nodes, 2 * nodeCount);
+        this.boxes = null;
+        centroids = null;
+        return this;
+    }
+
+    /**
+     * Getter for the order of the items in the leaves
+     *
+     * @return item indices, every leaf owns a continuous range
+     */
+    int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Getter for the bounds of the nodes
+     *
+     * @return six values per node
+     */
+    double[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Getter for the nodes
+     *
+     * @return two values per node
+     */
+    int[] getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Getter for the depth of the tree
+     *
+     * @return the depth
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * builds the node of a range of items and its sub tree
+     *
+     * @param from       first item of the range in the order array
+     * @param to         the item after the range
+     * @param nodeDepth  depth of the node
+     */
+    private void build(int from, int to, int nodeDepth) {
+        int index = nodeCount++;
+        if (nodeDepth > depth) depth = nodeDepth;
+
+        int b = 6 * index;
+        clear(bounds, b);
+        clear(cMin, cMax);
+        for (int i = from; i < to; ++i) {
+            int item = order[i];
+            include(bounds, b, boxes, 6 * item);
+            for (int axis = 0; axis < 3; ++axis) {
+                double c = centroids[3 * item + axis];
+                if (c < cMin[axis]) cMin[axis] = c;
+                if (c > cMax[axis]) cMax[axis] = c;
+            }
+        }
+
+        int size = to - from;
+        if (size <= leafSize) {
+            leaf(index, from, size);
+            return;
+        }
+
+        //bin the items by their centroids on all the axes
+        for (int axis = 0; axis < 3; ++axis)
+            binScale[axis] = cMax[axis] > cMin[axis] ? BINS / (cMax[axis] - cMin[axis]) : 0;
+        Arrays.fill(counts, 0);
+        for (int bin = 0; bin < 3 * BINS; ++bin)
+            clear(binBounds, 6 * bin);
+        for (int i = from; i < to; ++i) {
+            int item = order[i];
+            for (int axis = 0; axis < 3; ++axis) {
+                int bin = axis * BINS + binOf(centroids[3 * item + axis], axis);
+                ++counts[bin];
+                include(binBounds, 6 * bin, boxes, 6 * item);
+            }
+        }
+
+        //search the cheapest split plane
+        double nodeArea = area(bounds, b);
+        double bestCost = intersectionCost * size;
+        int bestAxis = -1;
+        int bestBin = 0;
+        for (int axis = 0; axis < 3; ++axis) {
+            if (!(cMax[axis] > cMin[axis])) continue;
+
+            //sweep from the right to get the area and count of every right side
+            clear(acc, 0);
+            int count = 0;
+            for (int bin = BINS - 1; bin > 0; --bin) {
+                int current = axis * BINS + bin;
+                if (counts[current] > 0) include(acc, 0, binBounds, 6 * current);
+                count += counts[current];
+                rightArea[bin] = count == 0 ? 0 : area(acc, 0);
+                rightCount[bin] = count;
+            }
+
+            //sweep from the left and evaluate the split after every bin
+            clear(acc, 0);
+            count = 0;
+            for (int bin = 0; bin < BINS - 1; ++bin) {
+                int current = axis * BINS + bin;
+                if (counts[current] > 0) include(acc, 0, binBounds, 6 * current);
+                count += counts[current];
+                if (count == 0 || rightCount[bin + 1] == 0) continue;
+                double cost = traversalCost + intersectionCost *
+                        (area(acc, 0) * count + rightArea[bin + 1] * rightCount[bin + 1]) / nodeArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = bin;
+                }
+            }
+        }
+
+        //splitting isn't cheaper than intersecting all the items
+        if (bestAxis == -1) {
+            leaf(index, from, size);
+            return;
+        }
+
+        //partition the range - the items of the left bins first
+        int middle = from;
+        for (int i = from; i < to; ++i) {
+            int item = order[i];
+            if (binOf(centroids[3 * item + bestAxis], bestAxis) <= bestBin) {
+                order[i] = order[middle];
+                order[middle++] = item;
+            }
+        }
+
+        build(from, middle, nodeDepth + 1);
+        nodes[2 * index] = nodeCount;
+        nodes[2 * index + 1] = LinearBVH.INNER;
+        build(middle, to, nodeDepth + 1);
+    }
+
+    /**
+     * writes a leaf node
+     *
+     * @param index the node index
+     * @param from  first item of the leaf in the order array
+     * @param size  the number of items in the leaf
+     */
+    private void leaf(int index, int from, int size) {
+        nodes[2 * index] = from;
+        nodes[2 * index + 1] = size;
+    }
+
+    /**
+     * finds the bin of a centroid coordinate in the current node
+     *
+     * @param c    the centroid coordinate
+     * @param axis the axis of the coordinate
+     * @return the bin index
+     */
+    private int binOf(double c, int axis) {
+        int bin = (int) ((c - cMin[axis]) * binScale[axis]);
+        return bin < 0 ? 0 : Math.min(bin, BINS - 1);
+    }
+
+    /**
+     * sets minimum and maximum coordinates to be empty
+     *
+     * @param min the minimum coordinates
+     * @param max the maximum coordinates
+     */
+    private static void clear(double[] min, double[] max) {
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * sets bounds to be empty
+     *
+     * @param bounds the bounds array
+     * @param b      the offset of the bounds in the array
+     */
+    private static void clear(double[] bounds, int b) {
+        for (int axis = 0; axis < 3; ++axis) {
+            bounds[b + axis] = Double.POSITIVE_INFINITY;
+            bounds[b + 3 + axis] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * expands bounds to include other bounds
+     *
+     * @param bounds the bounds array
+     * @param b      the offset of the bounds in the array
+     * @param other  the array of the bounds to include
+     * @param o      the offset of the bounds to include
+     */
+    private static void include(double[] bounds, int b, double[] other, int o) {
+        for (int axis = 0; axis < 3; ++axis) {
+            if (other[o + axis] < bounds[b + axis]) bounds[b + axis] = other[o + axis];
+            if (other[o + 3 + axis] > bounds[b + 3 + axis]) bounds[b + 3 + axis] = other[o + 3 + axis];
+        }
+    }
+
+    /**
+     * calculates the surface area of bounds
+     *
+     * @param bounds the bounds array
+     * @param b      the offset of the bounds in the array
+     * @return the surface area
+     */
+    private static double area(double[] bounds, int b) {
+        double dx = bounds[b + 3] - bounds[b];
+        double dy = bounds[b + 4] - bounds[b + 1];
+        double dz = bounds[b + 5] - bounds[b + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
@@ -46,9 +46,14 @@ public class Sphere extends RadialGeometry {
         if (ray.getHead().equals(this.center))
             return List.of(new GeoPoint(this, ray.getPoint(this.radius)));
 
-        Vector u = this.center.subtract(ray.getHead());
-        double tm = u.dotProduct(ray.getDirection());
-        double dSquared = u.lengthSquared() - tm * tm;
+        //u = center - head, by components
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ux = center.getX() - head.getX();
+        double uy = center.getY() - head.getY();
+        double uz = center.getZ() - head.getZ();
+        double tm = ux * direction.getX() + uy * direction.getY() + uz * direction.getZ();
+        double dSquared = ux * ux + uy * uy + uz * uz - tm * tm;
         double thSquared = this.radiusSquared - dSquared;
         if (alignZero(thSquared) <= 0) // No intersections
             return null;
@@ -75,4 +80,32 @@ public class Sphere extends RadialGeometry {
                 //0<t1<t2<maxSize
                 : List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
     }
-}
\ No newline at end of file
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+
+        //Ray starts at the center of sphere
+        if (ray.getHead().equals(this.center))
+            return new GeoPoint(this, ray.getPoint(this.radius));
+
+        //u = center - head, by components
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ux = center.getX() - head.getX();
+        double uy = center.getY() - head.getY();
+        double uz = center.getZ() - head.getZ();
+        double tm = ux * direction.getX() + uy * direction.getY() + uz * direction.getZ();
+        double thSquared = this.radiusSquared - (ux * ux + uy * uy + uz * uz) + tm * tm;
+        if (alignZero(thSquared) <= 0) // No intersections
+            return null;
+
+        double th = Math.sqrt(thSquared);
+        double t2 = alignZero(tm + th);
+        if (t2 <= 0) return null;
+
+        //the first point in front of the ray's head
+        double t1 = alignZero(tm - th);
+        double t = t1 > 0 ? t1 : t2;
+        return alignZero(t - maxDistance) < 0 ? new GeoPoint(this, ray.getPoint(t)) : null;
+    }
+}
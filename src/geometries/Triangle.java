@@ -25,31 +25,58 @@ public class Triangle extends Polygon {
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
 
-        List<GeoPoint> intersections = plane.findGeoIntersectionsHelper(ray, maxDistance);
-        if (intersections == null) return null;
+        double t = plane.intersect(ray, maxDistance);
+        if (t == Double.POSITIVE_INFINITY) return null;
 
+        //the edge vectors and the normals of the sides are kept in locals instead of vector objects
         Point ph = ray.getHead();
         Vector v = ray.getDirection();
+        double hx = ph.getX(), hy = ph.getY(), hz = ph.getZ();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
 
         Point p1 = vertices.get(0);
         Point p2 = vertices.get(1);
-        Vector v1 = p1.subtract(ph);
-        Vector v2 = p2.subtract(ph);
-        Vector n1 = v1.crossProduct(v2).normalize();
-        double t1 = alignZero(v.dotProduct(n1));
+        double v1x = p1.getX() - hx, v1y = p1.getY() - hy, v1z = p1.getZ() - hz;
+        double v2x = p2.getX() - hx, v2y = p2.getY() - hy, v2z = p2.getZ() - hz;
+        double t1 = alignZero(side(vx, vy, vz, v1x, v1y, v1z, v2x, v2y, v2z));
         if (t1 == 0) return null;
 
         Point p3 = vertices.get(2);
-        Vector v3 = p3.subtract(ph);
-        Vector n2 = v2.crossProduct(v3).normalize();
-        double t2 = alignZero(v.dotProduct(n2));
+        double v3x = p3.getX() - hx, v3y = p3.getY() - hy, v3z = p3.getZ() - hz;
+        double t2 = alignZero(side(vx, vy, vz, v2x, v2y, v2z, v3x, v3y, v3z));
         if (t1 * t2 <= 0) return null;
 
-        Vector n3 = v3.crossProduct(v1).normalize();
-        double t3 = alignZero(v.dotProduct(n3));
+        double t3 = alignZero(side(vx, vy, vz, v3x, v3y, v3z, v1x, v1y, v1z));
         if (t1 * t3 <= 0) return null;
 
-        return List.of(new GeoPoint(this, intersections.getFirst().point));
+        return List.of(new GeoPoint(this, ray.getPoint(t)));
     }
 
-}
\ No newline at end of file
+    /**
+     * Calculates the dot product of a direction with the normalized cross product of two edge vectors,
+     * its sign tells on which side of the edge the direction passes
+     *
+     * @param vx x of the direction
+     * @param vy y of the direction
+     * @param vz z of the direction
+     * @param ax x of the first edge vector
+     * @param ay y of the first edge vector
+     * @param az z of the first edge vector
+     * @param bx x of the second edge vector
+     * @param by y of the second edge vector
+     * @param bz z of the second edge vector
+     * @return v * normalize(a x b), 0 if a and b are parallel
+     */
+    private static double side(double vx, double vy, double vz,
+                               double ax, double ay, double az, double bx, double by, double bz) {
+        double nx = ay * bz - az * by;
+        double ny = az * bx - ax * bz;
+        double nz = ax * by - ay * bx;
+        double lengthSquared = nx * nx + ny * ny + nz * nz;
+        //parallel edge vectors, the direction passes on the edge
+        if (lengthSquared == 0) return 0;
+        double scale = 1.0 / Math.sqrt(lengthSquared);
+        return vx * (nx * scale) + vy * (ny * scale) + vz * (nz * scale);
+    }
+
+}
@@ -0,0 +1,396 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+
+/**
+ * class to present a mesh of triangles sharing an indexed vertex buffer.
+ * The vertices are kept in a flat array of coordinates and the faces in a flat array of vertex indices,
+ * and the faces are organized in an internal BVH, so a mesh of many triangles is a single geometry.
+ * The intersection is calculated on the coordinates directly (Möller–Trumbore),
+ * points and face geometries are created for the hits only.
+ */
+public class TriangleMesh extends Geometry {
+    /**
+     * Maximum number of faces in a leaf of the BVH
+     */
+    private static final int LEAF_SIZE = 4;
+    /**
+     * Cost of traversing an inner node of the BVH
+     */
+    private static final double TRAVERSAL_COST = 0.125;
+    /**
+     * Cost of intersecting a single face
+     */
+    private static final double INTERSECTION_COST = 1;
+    /**
+     * Squared sine of the angle between a ray and a face below which the ray is parallel to the face,
+     * the square of the accuracy of {@link primitives.Util#isZero(double)}
+     */
+    private static final double PARALLEL = 0x1p-80;
+
+    /**
+     * Coordinates of the vertices, three values per vertex: x, y, z
+     */
+    private final double[] vertices;
+    /**
+     * Vertex indices of the faces, three values per face, in the order of the leaves of the BVH
+     */
+    private final int[] faces;
+    /**
+     * Bounds of the nodes of the BVH, see {@link LinearBVH}
+     */
+    private final double[] bounds;
+    /**
+     * The nodes of the BVH, see {@link LinearBVH}
+     */
+    private final int[] nodes;
+    /**
+     * Size of the traversal stack
+     */
+    private final int stackSize;
+    /**
+     * The faces as geometries, created when a face is first hit
+     */
+    private final Face[] faceGeometries;
+
+    /**
+     * Constructs a mesh. The vertices array is kept as is and should not be changed afterward.
+     *
+     * @param vertices coordinates of the vertices, three values per vertex: x, y, z
+     * @param faces    vertex indices of the faces, three values per face
+     * @throws IllegalArgumentException if the arrays aren't of triples, there are no faces
+     *                                  or a face refers to a missing vertex
+     */
+    public TriangleMesh(double[] vertices, int[] faces) {
+        if (vertices.length % 3 != 0 || faces.length % 3 != 0 || faces.length == 0)
+            throw new IllegalArgumentException("A mesh requires triples of coordinates and of indices");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("A face refers to a missing vertex");
+        this.vertices = vertices;
+
+        int faceCount = faces.length / 3;
+        double[] boxes = new double[6 * faceCount];
+        for (int f = 0; f < faceCount; ++f) {
+            for (int axis = 0; axis < 3; ++axis) {
+                double a = vertices[3 * faces[3 * f] + axis];
+                double b = vertices[3 * faces[3 * f + 1] + axis];
+                double c = vertices[3 * faces[3 * f + 2] + axis];
+                boxes[6 * f + axis] = Math.min(a, Math.min(b, c));
+                boxes[6 * f + 3 + axis] = Math.max(a, Math.max(b, c));
+            }
+        }
+        var builder = new SAHBuilder(LEAF_SIZE, TRAVERSAL_COST, INTERSECTION_COST).build(boxes);
+        bounds = builder.getBounds();
+        nodes = builder.getNodes();
+        stackSize = builder.getDepth() + 2;
+
+        //keep the faces in the order of the leaves
+        int[] order = builder.getOrder();
+        this.faces = new int[faces.length];
+        for (int f = 0; f < faceCount; ++f)
+            System.arraycopy(faces, 3 * order[f], this.faces, 3 * f, 3);
+        faceGeometries = new Face[faceCount];
+    }
+
+    /**
+     * Getter for the number of faces
+     *
+     * @return the number of faces
+     */
+    public int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    @Override
+    public void setBoundingBox() {
+        boundingBox = new BoundingBox(bounds[0], bounds[3], bounds[1], bounds[4], bounds[2], bounds[5]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The intersections of a mesh refer to the face that was hit, which knows its normal,
+     * so this is needed only for a point which wasn't found by an intersection,
+     * and it searches the face whose plane is the closest to the point.
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        int closest = 0;
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (int f = 0; f < faces.length / 3; ++f) {
+            int a = 3 * faces[3 * f];
+            Vector normal = normal(f);
+            double distance = Math.abs(normal.dotProduct(new Vector(
+                    point.getX() - vertices[a], point.getY() - vertices[a + 1], point.getZ() - vertices[a + 2])));
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = f;
+            }
+        }
+        return normal(closest);
+    }
+
+    /**
+     * calculates the normal of a face
+     *
+     * @param f the face
+     * @return the normal, by the right hand rule on the order of the vertices
+     */
+    private Vector normal(int f) {
+        int a = 3 * faces[3 * f];
+        int b = 3 * faces[3 * f + 1];
+        int c = 3 * faces[3 * f + 2];
+        Vector e1 = new Vector(vertices[b] - vertices[a], vertices[b + 1] - vertices[a + 1], vertices[b + 2] - vertices[a + 2]);
+        Vector e2 = new Vector(vertices[c] - vertices[a], vertices[c + 1] - vertices[a + 1], vertices[c + 2] - vertices[a + 2]);
+        return e1.crossProduct(e2).normalize();
+    }
+
+    /**
+     * Calculates the intersection of a ray with a face (Möller–Trumbore).
+     * The edges belong to the face so that there are no gaps between neighbour faces.
+     *
+     * @param f           the face
+     * @param ox          x of the head of the ray
+     * @param oy          y of the head of the ray
+     * @param oz          z of the head of the ray
+     * @param dx          x of the direction of the ray
+     * @param dy          y of the direction of the ray
+     * @param dz          z of the direction of the ray
+     * @param maxDistance the maximum distance
+     * @return the distance of the intersection, positive infinity if there is none
+     */
+    private double intersect(int f, double ox, double oy, double oz,
+                             double dx, double dy, double dz, double maxDistance) {
+        int a = 3 * faces[3 * f];
+        int b = 3 * faces[3 * f + 1];
+        int c = 3 * faces[3 * f + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double e1x = vertices[b] - ax, e1y = vertices[b + 1] - ay, e1z = vertices[b + 2] - az;
+        double e2x = vertices[c] - ax, e2y = vertices[c + 1] - ay, e2z = vertices[c + 2] - az;
+
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        //the ray is parallel to the face - det relative to the lengths of the edges and the direction
+        //(the sine of the angle between them) is almost zero, at any scale of the mesh
+        double scale = (e1x * e1x + e1y * e1y + e1z * e1z) * (e2x * e2x + e2y * e2y + e2z * e2z)
+                * (dx * dx + dy * dy + dz * dz);
+        if (det * det <= PARALLEL * scale) return Double.POSITIVE_INFINITY;
+        double inv = 1 / det;
+
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = (sx * px + sy * py + sz * pz) * inv;
+        if (u < 0 || u > 1) return Double.POSITIVE_INFINITY;
+
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inv;
+        if (v < 0 || u + v > 1) return Double.POSITIVE_INFINITY;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        return t > 0 && alignZero(t - maxDistance) < 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * gets the geometry of a face
+     *
+     * @param f the face
+     * @return the face's geometry
+     */
+    private Face face(int f) {
+        //a race may create the same face twice, which is harmless
+        Face face = faceGeometries[f];
+        if (face == null)
+            faceGeometries[f] = face = new Face(f);
+        return face;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double[] origin = {ox, oy, oz};
+        double[] inverse = LinearBVH.inverseDirection(ray);
+
+        List<GeoPoint> intersections = null;
+        int[] stack = new int[stackSize];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (LinearBVH.entry(bounds, node, origin, inverse, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+
+            int count = nodes[2 * node + 1];
+            if (count == LinearBVH.INNER) {
+                stack[top++] = nodes[2 * node];
+                stack[top++] = node + 1;
+                continue;
+            }
+
+            for (int f = nodes[2 * node], end = f + count; f < end; ++f) {
+                double t = intersect(f, ox, oy, oz, dx, dy, dz, maxDistance);
+                if (t != Double.POSITIVE_INFINITY) {
+                    if (intersections == null) intersections = new LinkedList<>();
+                    intersections.add(new GeoPoint(face(f), ray.getPoint(t)));
+                }
+            }
+        }
+        return intersections;
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double[] origin = {ox, oy, oz};
+        double[] inverse = LinearBVH.inverseDirection(ray);
+
+        double rootEntry = LinearBVH.entry(bounds, 0, origin, inverse, maxDistance);
+        if (rootEntry == Double.POSITIVE_INFINITY)
+            return null;
+
+        int closest = -1;
+        int[] stack = new int[stackSize];
+        double[] entries = new double[stackSize];
+        int top = 0;
+        stack[top] = 0;
+        entries[top++] = rootEntry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > maxDistance)
+                continue;
+
+            int count = nodes[2 * node + 1];
+            if (count == LinearBVH.INNER) {
+                int near = node + 1;
+                int far = nodes[2 * node];
+                double tNear = LinearBVH.entry(bounds, near, origin, inverse, maxDistance);
+                double tFar = LinearBVH.entry(bounds, far, origin, inverse, maxDistance);
+                if (tNear > tFar) {
+                    int tempNode = near;
+                    near = far;
+                    far = tempNode;
+                    double temp = tNear;
+                    tNear = tFar;
+                    tFar = temp;
+                }
+                //the nearer child is pushed last so it is visited first
+                if (tFar != Double.POSITIVE_INFINITY) {
+                    stack[top] = far;
+                    entries[top++] = tFar;
+                }
+                if (tNear != Double.POSITIVE_INFINITY) {
+                    stack[top] = near;
+                    entries[top++] = tNear;
+                }
+                continue;
+            }
+
+            for (int f = nodes[2 * node], end = f + count; f < end; ++f) {
+                double t = intersect(f, ox, oy, oz, dx, dy, dz, maxDistance);
+                if (t != Double.POSITIVE_INFINITY) {
+                    closest = f;
+                    maxDistance = t;
+                }
+            }
+        }
+        return closest == -1 ? null : new GeoPoint(face(closest), ray.getPoint(maxDistance));
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        double[] origin = {ox, oy, oz};
+        double[] inverse = LinearBVH.inverseDirection(ray);
+
+        int[] stack = new int[stackSize];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (LinearBVH.entry(bounds, node, origin, inverse, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+
+            int count = nodes[2 * node + 1];
+            if (count == LinearBVH.INNER) {
+                stack[top++] = nodes[2 * node];
+                stack[top++] = node + 1;
+                continue;
+            }
+
+            for (int f = nodes[2 * node], end = f + count; f < end; ++f)
+                if (intersect(f, ox, oy, oz, dx, dy, dz, maxDistance) != Double.POSITIVE_INFINITY)
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * A single face of the mesh as it is referred by an intersection.
+     * It shares the emission and the material of the mesh.
+     */
+    private class Face extends Geometry {
+        /**
+         * The face's index in the mesh
+         */
+        private final int index;
+
+        /**
+         * Constructs the geometry of a face
+         *
+         * @param index the face's index in the mesh
+         */
+        private Face(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Color getEmission() {
+            return TriangleMesh.this.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return TriangleMesh.this.getMaterial();
+        }
+
+        @Override
+        public Geometry getOwner() {
+            return TriangleMesh.this;
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return normal(index);
+        }
+
+        @Override
+        public void setBoundingBox() {
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            Point head = ray.getHead();
+            Vector direction = ray.getDirection();
+            double t = intersect(index, head.getX(), head.getY(), head.getZ(),
+                    direction.getX(), direction.getY(), direction.getZ(), maxDistance);
+            return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package primitives;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Blue noise beam sampler - Mitchell's best candidate points, each new point is the candidate
+ * farthest from the points taken so far. Building a pattern takes quadratic time,
+ * so one pattern is built for every count and each beam gets it randomly rotated and mirrored.
+ */
+class BlueNoiseSampler implements Sampler {
+    /**
+     * Candidates per point already taken
+     */
+    private static final int CANDIDATES = 4;
+
+    /**
+     * The patterns by their count of points
+     */
+    private final Map<Integer, double[]> patterns = new ConcurrentHashMap<>();
+
+    @Override
+    public double[] sampleDisk(int count) {
+        double[] pattern = patterns.computeIfAbsent(count, BlueNoiseSampler::pattern);
+        var random = Util.getRandom();
+        double angle = random.nextDouble(2 * Math.PI);
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double mirror = random.nextBoolean() ? 1 : -1;
+        double[] points = new double[pattern.length];
+        for (int i = 0; i < pattern.length; i += 2) {
+            double x = pattern[i];
+            double y = pattern[i + 1] * mirror;
+            points[i] = x * cos - y * sin;
+            points[i + 1] = x * sin + y * cos;
+        }
+        return points;
+    }
+
+    /**
+     * Builds a best candidate pattern
+     *
+     * @param count the number of points
+     * @return the points, x and y of the i-th point at indexes 2i and 2i+1
+     */
+    private static double[] pattern(int count) {
+        //a fixed seed, so that renderings don't depend on which thread built the pattern
+        Random random = new Random(count);
+        double[] points = new double[2 * count];
+        for (int i = 0; i < count; ++i) {
+            double bestX = 0, bestY = 0, bestDistance = -1;
+            for (int c = Math.max(1, CANDIDATES * i); c > 0; --c) {
+                //uniform point in the disk
+                double r = Math.sqrt(random.nextDouble());
+                double phi = 2 * Math.PI * random.nextDouble();
+                double x = r * Math.cos(phi);
+                double y = r * Math.sin(phi);
+                double distance = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < i && distance > bestDistance; ++j) {
+                    double dx = x - points[2 * j];
+                    double dy = y - points[2 * j + 1];
+                    distance = Math.min(distance, dx * dx + dy * dy);
+                }
+                if (distance > bestDistance) {
+                    bestDistance = distance;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+            points[2 * i] = bestX;
+            points[2 * i + 1] = bestY;
+        }
+        return points;
+    }
+}
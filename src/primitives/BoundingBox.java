@@ -181,6 +181,29 @@ public class BoundingBox {
         return center;
     }
 
+    /**
+     * Checks whether the box is finite, the default box of unbounded shapes (e.g. planes) isn't
+     *
+     * @return true if all the limits of the box are finite
+     */
+    public boolean isBounded() {
+        return xMin > -Double.MAX_VALUE && xMax < Double.MAX_VALUE
+                && yMin > -Double.MAX_VALUE && yMax < Double.MAX_VALUE
+                && zMin > -Double.MAX_VALUE && zMax < Double.MAX_VALUE;
+    }
+
+    /**
+     * Calculates the surface area of the bounding box
+     *
+     * @return the surface area
+     */
+    public double surfaceArea() {
+        double dx = xMax - xMin;
+        double dy = yMax - yMin;
+        double dz = zMax - zMin;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
     /**
      * Expand this boundingBox with the received bb
      *
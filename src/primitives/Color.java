@@ -128,6 +128,15 @@ public class Color {
         return new Color(rgb.reduce(k));
     }
 
+    /**
+     * get the color components
+     *
+     * @return the red, green and blue components
+     */
+    public Double3 getRgb() {
+        return rgb;
+    }
+
     @Override
     public String toString() {
         return "rgb:" + rgb;
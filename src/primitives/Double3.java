@@ -155,4 +155,43 @@ public class Double3 {
     public boolean lowerThan(Double3 other) {
         return d1 < other.d1 && d2 < other.d2 && d3 < other.d3;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks whether all the numbers of the product with another triad are lower than three numbers in a third
+     * triad, without creating the product triad
+     *
+     * @param rhs   right hand side operand for product
+     * @param other the triad to compare to
+     * @return true if {@code this.product(rhs).lowerThan(other)}, false otherwise
+     */
+    public boolean productLowerThan(Double3 rhs, Double3 other) {
+        return d1 * rhs.d1 < other.d1 && d2 * rhs.d2 < other.d2 && d3 * rhs.d3 < other.d3;
+    }
+
+    /**
+     * get the first number
+     *
+     * @return the first number
+     */
+    public double getD1() {
+        return d1;
+    }
+
+    /**
+     * get the second number
+     *
+     * @return the second number
+     */
+    public double getD2() {
+        return d2;
+    }
+
+    /**
+     * get the third number
+     *
+     * @return the third number
+     */
+    public double getD3() {
+        return d3;
+    }
+}
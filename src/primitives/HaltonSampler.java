@@ -0,0 +1,41 @@
+package primitives;
+
+/**
+ * Low discrepancy beam sampler - the Halton sequence in bases 2 and 3 mapped into the disk.
+ * Every beam shifts the sequence by a random offset (modulo 1), so neighbour pixels don't repeat
+ * the same pattern while the points keep their even spread.
+ */
+class HaltonSampler implements Sampler {
+    @Override
+    public double[] sampleDisk(int count) {
+        var random = Util.getRandom();
+        double shiftU = random.nextDouble();
+        double shiftV = random.nextDouble();
+        double[] points = new double[2 * count];
+        for (int i = 0; i < count; ++i) {
+            double u = radicalInverse(i + 1, 2) + shiftU;
+            double v = radicalInverse(i + 1, 3) + shiftV;
+            Sampler.toDisk(u < 1 ? u : u - 1, v < 1 ? v : v - 1, points, i);
+        }
+        return points;
+    }
+
+    /**
+     * Mirrors the digits of a number in a base around the radix point
+     *
+     * @param index the number
+     * @param base  the base
+     * @return the radical inverse, in [0, 1)
+     */
+    static double radicalInverse(int index, int base) {
+        double inverse = 0;
+        double fraction = 1d / base;
+        double digitValue = fraction;
+        while (index > 0) {
+            inverse += (index % base) * digitValue;
+            index /= base;
+            digitValue *= fraction;
+        }
+        return inverse;
+    }
+}
@@ -0,0 +1,36 @@
+package primitives;
+
+/**
+ * Stratified beam sampler - the unit square is split into a grid of about count cells,
+ * a random point is taken in each cell and mapped into the disk.
+ * The cells are taken in random order, and when count isn't a product of the grid sides
+ * the cells left at the end of the order stay empty.
+ */
+class JitteredSampler implements Sampler {
+    @Override
+    public double[] sampleDisk(int count) {
+        var random = Util.getRandom();
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        int rows = columns == 0 ? 0 : (count + columns - 1) / columns;
+        int cells = columns * rows;
+
+        //the first count cells of a random permutation, so that any prefix of the points is spread over the disk
+        int[] order = new int[cells];
+        for (int i = 0; i < cells; ++i) order[i] = i;
+        for (int i = 0; i < count; ++i) {
+            int j = random.nextInt(i, cells);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        double[] points = new double[2 * count];
+        for (int i = 0; i < count; ++i) {
+            int cell = order[i];
+            double u = (cell % columns + random.nextDouble()) / columns;
+            double v = (cell / columns + random.nextDouble()) / rows;
+            Sampler.toDisk(u, v, points, i);
+        }
+        return points;
+    }
+}
@@ -46,6 +46,11 @@ public class Material {
      */
     public double blurGlassEffectRadius = 0;
 
+    /**
+     * Sampler placing the rays of the blur glass effect.
+     */
+    public Sampler sampler = Sampler.RINGS;
+
     /**
      * setter in a builder design for Reflection factor
      *
@@ -188,6 +193,21 @@ public class Material {
         return this;
     }
 
+    /**
+     * Setter for sampler. The stratified and low discrepancy samplers reach the quality of the default
+     * random one with a fraction of the blur rays.
+     *
+     * @param sampler The sampler to set.
+     * @return This Material object.
+     * @throws IllegalArgumentException if the sampler is null.
+     */
+    public Material setSampler(Sampler sampler) {
+        if (sampler == null)
+            throw new IllegalArgumentException("Illegal argument in setSampler");
+        this.sampler = sampler;
+        return this;
+    }
+
     /**
      * Sets the parameters for glossy surface and diffusive glass affect.
      *
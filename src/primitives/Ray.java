@@ -2,7 +2,7 @@ package primitives;
 
 import geometries.Intersectable.GeoPoint;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import static primitives.Util.*;
@@ -44,8 +44,10 @@ public class Ray {
      * @param normal the normal vector of the ray.
      */
     public Ray(Point p0, Vector dir, Vector normal) {
-        double res = dir.dotProduct(normal);
-        this.head = p0.add(normal.scale(res >= 0 ? DELTA : -DELTA));
+        double delta = dir.dotProduct(normal) >= 0 ? DELTA : -DELTA;
+        this.head = new Point(p0.xyz.d1 + normal.xyz.d1 * delta,
+                p0.xyz.d2 + normal.xyz.d2 * delta,
+                p0.xyz.d3 + normal.xyz.d3 * delta);
         this.direction = dir;
     }
 
@@ -88,7 +90,9 @@ public class Ray {
      */
     public Point getPoint(double t) {
         //p= p0 or p0 + tv
-        return isZero(t) ? this.head : head.add(this.direction.scale(t));
+        return isZero(t) ? this.head : new Point(head.xyz.d1 + direction.xyz.d1 * t,
+                head.xyz.d2 + direction.xyz.d2 * t,
+                head.xyz.d3 + direction.xyz.d3 * t);
     }
 
     /**
@@ -130,7 +134,8 @@ public class Ray {
     }
 
     /**
-     * Generates a beam of rays within a given radius and distance from the original ray.
+     * Generates a beam of rays within a given radius and distance from the original ray,
+     * with the original random sampling.
      *
      * @param n         the normal vector to the surface
      * @param radius    the radius within which to generate the rays
@@ -139,56 +144,60 @@ public class Ray {
      * @return a list of rays within the specified radius and distance
      */
     public List<Ray> generateBeamOfRays(Vector n, double radius, double distance, int numOfRays) {
+        return generateBeamOfRays(n, radius, distance, numOfRays, Sampler.RINGS);
+    }
+
+    /**
+     * Generates a beam of rays within a given radius and distance from the original ray.
+     * Rays on the other side of the surface than the original ray are left out,
+     * if none is left the beam is the original ray.
+     *
+     * @param n         the normal vector to the surface
+     * @param radius    the radius within which to generate the rays
+     * @param distance  the distance from the starting point of the ray to the target plane
+     * @param numOfRays the number of rays to generate in the beam
+     * @param sampler   the sampler placing the rays on the target circle
+     * @return a list of rays within the specified radius and distance
+     */
+    public List<Ray> generateBeamOfRays(Vector n, double radius, double distance, int numOfRays, Sampler sampler) {
         // The component (glossy surface / diffuse glass) is turned off
         if (numOfRays == 1 || isZero(radius))
             return List.of(this);
 
-        List<Ray> beamOfRays = new LinkedList<Ray>();
-        // beamOfRays.add(this);
-
         // the 2 vectors that create the virtual grid for the beam
         // a vector normal to the current direction
         Vector vX = direction.createOrthogonal();
         // is the cross product of the current direction and vX, ensuring orthogonality
         Vector vY = direction.crossProduct(vX);
 
-        //point in the center of the target plane
-        Point centerOfCircle = this.getPoint(distance);
-        Vector v12;
-        Point randPoint;
-
-        double randX, randY;
-        double deltaRadius = radius / (numOfRays - 1);
+        //the target circle's center relative to the head
+        double cx = direction.xyz.d1 * distance;
+        double cy = direction.xyz.d2 * distance;
+        double cz = direction.xyz.d3 * distance;
         // the dot product of the normal vector n and the direction vector of the main ray
         double nv = n.dotProduct(direction);
 
-        for (int i = 1; i < numOfRays; i++) {
-            randPoint = centerOfCircle;
-            randX = random(-radius, radius);
-            randY = randomSign() * Math.sqrt(radius * radius - randX * randX);
-
-            try {
-                randPoint = randPoint.add(vX.scale(randX));
-            } catch (Exception ignore) {
-            }
-            try {
-                randPoint = randPoint.add(vY.scale(randY));
-            } catch (Exception ignore) {
-            }
-
-            v12 = randPoint.subtract(head).normalize();
-
-            // the dot product of the normal vector n and the direction vector v12 of each generated ray
-            double nt = alignZero(n.dotProduct(v12));
+        double[] points = sampler.sampleDisk(numOfRays);
+        List<Ray> beamOfRays = new ArrayList<>(points.length / 2);
+        for (int i = 0; i < points.length; i += 2) {
+            double x = points[i] * radius;
+            double y = points[i + 1] * radius;
+            double dx = cx + vX.xyz.d1 * x + vY.xyz.d1 * y;
+            double dy = cy + vX.xyz.d2 * x + vY.xyz.d2 * y;
+            double dz = cz + vX.xyz.d3 * x + vY.xyz.d3 * y;
+            //the target point is the head itself
+            if (isZero(dx) && isZero(dy) && isZero(dz)) continue;
+
+            Ray ray = new Ray(head, new Vector(dx, dy, dz));
+            // the dot product of the normal vector n and the direction vector of each generated ray
+            double nt = alignZero(n.dotProduct(ray.direction));
 
             // if they have the same sign, the new ray is added to the list
-            if (compareSign(nv, nt)) {
-                beamOfRays.add(new Ray(head, v12));
-            }
-            radius -= deltaRadius;
+            if (compareSign(nv, nt))
+                beamOfRays.add(ray);
         }
 
-        return beamOfRays;
+        return beamOfRays.isEmpty() ? List.of(this) : beamOfRays;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package primitives;
+
+/**
+ * The original beam sampler - a random point on each of count - 1 rings whose radius shrinks linearly
+ * from the edge of the disk towards its center, the rings come in random order
+ */
+class RingsSampler implements Sampler {
+    @Override
+    public double[] sampleDisk(int count) {
+        if (count < 2) return new double[0];
+        var random = Util.getRandom();
+        double[] points = new double[2 * (count - 1)];
+        double radius = 1;
+        double deltaRadius = 1d / (count - 1);
+        for (int i = 0; i < count - 1; ++i) {
+            double x = random.nextDouble(-radius, radius);
+            points[2 * i] = x;
+            points[2 * i + 1] = (random.nextBoolean() ? 1 : -1) * Math.sqrt(radius * radius - x * x);
+            radius -= deltaRadius;
+        }
+        //random order of the rings, so that any prefix of the points is spread over the disk
+        for (int i = points.length / 2 - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            double x = points[2 * i];
+            double y = points[2 * i + 1];
+            points[2 * i] = points[2 * j];
+            points[2 * i + 1] = points[2 * j + 1];
+            points[2 * j] = x;
+            points[2 * j + 1] = y;
+        }
+        return points;
+    }
+}
@@ -0,0 +1,59 @@
+package primitives;
+
+/**
+ * Sampler of points in the unit disk, it places the rays of a beam (glossy surfaces and blurry glass)
+ * on the target circle. The sampler is chosen per material.
+ */
+public interface Sampler {
+    /**
+     * The original sampler - random points on rings of linearly shrinking radius, one point less than asked
+     */
+    Sampler RINGS = new RingsSampler();
+    /**
+     * Stratified sampler - a random point in every cell of a grid over the disk
+     */
+    Sampler JITTERED = new JitteredSampler();
+    /**
+     * Low discrepancy sampler - the Halton sequence in bases 2 and 3, randomly shifted for every beam
+     */
+    Sampler HALTON = new HaltonSampler();
+    /**
+     * Blue noise sampler - well spread points (best candidate), randomly rotated for every beam
+     */
+    Sampler BLUE_NOISE = new BlueNoiseSampler();
+
+    /**
+     * Generates points in the unit disk
+     *
+     * @param count the number of points to generate
+     * @return the points, x and y of the i-th point at indexes 2i and 2i+1
+     */
+    double[] sampleDisk(int count);
+
+    /**
+     * Maps a point of the unit square into the unit disk keeping the areas (concentric mapping),
+     * so that a well stratified pattern in the square stays well stratified in the disk
+     *
+     * @param u      x in the unit square
+     * @param v      y in the unit square
+     * @param points the points array to write into
+     * @param index  the index of the point
+     */
+    static void toDisk(double u, double v, double[] points, int index) {
+        double a = 2 * u - 1;
+        double b = 2 * v - 1;
+        double r, phi;
+        if (a == 0 && b == 0) {
+            r = 0;
+            phi = 0;
+        } else if (a * a > b * b) {
+            r = a;
+            phi = Math.PI / 4 * (b / a);
+        } else {
+            r = b;
+            phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+        }
+        points[2 * index] = r * Math.cos(phi);
+        points[2 * index + 1] = r * Math.sin(phi);
+    }
+}
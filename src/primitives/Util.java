@@ -1,6 +1,8 @@
 package primitives;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Util class is used for some internal utilities, e.g. controlling accuracy
@@ -14,9 +16,15 @@ public final class Util {
     private static final int ACCURACY = -40;
 
     /**
-     * Instance of Random class
+     * The seeded generator of the current thread, null when the thread uses its unseeded generator
      */
-    private static final Random random = new Random();
+    private static final ThreadLocal<SplittableRandom> seeded = new ThreadLocal<>();
+
+    /**
+     * Odd multiplier spreading the streams of a seed before they are mixed, unrelated to the
+     * golden ratio increment of {@link SplittableRandom}
+     */
+    private static final long STREAM_MULTIPLIER = 0xD1B54A32D192ED03L;
 
     /**
      * Don't let anyone instantiate this class.
@@ -82,7 +90,7 @@ public final class Util {
      * @return the random value
      */
     public static double random(double min, double max) {
-        return Math.random() * (max - min) + min;
+        return getRandom().nextDouble() * (max - min) + min;
     }
 
     /**
@@ -91,7 +99,50 @@ public final class Util {
      * @return random sign -/+
      */
     public static int randomSign() {
-        return random.nextBoolean() ? 1 : -1;
+        return getRandom().nextBoolean() ? 1 : -1;
+    }
+
+    /**
+     * Provides the random generator of the current thread - the seeded one if the thread is seeded,
+     * otherwise its {@link ThreadLocalRandom}. The generator should be used by the current thread only.
+     *
+     * @return the generator
+     */
+    public static RandomGenerator getRandom() {
+        SplittableRandom generator = seeded.get();
+        return generator != null ? generator : ThreadLocalRandom.current();
+    }
+
+    /**
+     * Seeds the random generator of the current thread, e.g. per pixel, so that the random numbers
+     * don't depend on which thread renders what
+     *
+     * @param seed   the seed
+     * @param stream the stream of the seed, e.g. the pixel index
+     */
+    public static void seedRandom(long seed, long stream) {
+        //a linear seed would put the streams at fixed distances along the generator's own sequence,
+        //the mix scatters them so that no stream is a shifted copy of another
+        seeded.set(new SplittableRandom(mix(seed ^ stream * STREAM_MULTIPLIER)));
+    }
+
+    /**
+     * Mixes the bits of a number (the SplitMix64 finalizer), every input bit affects every output bit
+     *
+     * @param z the number
+     * @return the mixed number
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the current thread to its unseeded random generator
+     */
+    public static void unseedRandom() {
+        seeded.remove();
     }
 
 }
\ No newline at end of file
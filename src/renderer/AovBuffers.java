@@ -0,0 +1,213 @@
+package renderer;
+
+import primitives.Double3;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Auxiliary buffers of a rendering (arbitrary output variables) - the distance of the hit along the pixel's ray,
+ * the normal of the hit geometry, its albedo (the diffuse factor of its material) and the id of the geometry.
+ * The camera fills them by the ray through the pixel's center, in the same pass as the image.
+ * A pixel without a hit has zeros in all the buffers, the id 0 is the background.
+ */
+public class AovBuffers {
+    /**
+     * Number of pixels in a row
+     */
+    private final int nX;
+    /**
+     * Number of rows
+     */
+    private final int nY;
+    /**
+     * The name of the buffer files, suffixed by the buffer
+     */
+    private final String imageName;
+
+    /**
+     * The hit distances, row by row
+     */
+    private final float[] depth;
+    /**
+     * The normals (x, y and z of every pixel), row by row
+     */
+    private final float[] normal;
+    /**
+     * The albedos (r, g and b of every pixel), row by row
+     */
+    private final float[] albedo;
+    /**
+     * The geometry ids, row by row
+     */
+    private final int[] ids;
+
+    /**
+     * Logger of the file writing
+     */
+    private final Logger logger = Logger.getLogger("AovBuffers");
+
+    /**
+     * Creates empty buffers
+     *
+     * @param imageName the name of the buffer files, see {@link #writeToFiles()}
+     * @param nX        number of pixels in a row
+     * @param nY        number of rows
+     */
+    public AovBuffers(String imageName, int nX, int nY) {
+        if (nX <= 0 || nY <= 0)
+            throw new IllegalArgumentException("Illegal argument in AovBuffers");
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+        depth = new float[nX * nY];
+        normal = new float[3 * nX * nY];
+        albedo = new float[3 * nX * nY];
+        ids = new int[nX * nY];
+    }
+
+    /**
+     * Get the number of pixels in a row
+     *
+     * @return the number of pixels in a row
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * Get the number of rows
+     *
+     * @return the number of rows
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * Writes the hit of a pixel
+     *
+     * @param x        the column
+     * @param y        the row
+     * @param distance the distance of the hit from the ray's head
+     * @param n        the normal of the geometry at the hit
+     * @param kD       the diffuse factor of the geometry's material
+     * @param id       the id of the geometry, positive
+     */
+    public void write(int x, int y, double distance, Vector n, Double3 kD, int id) {
+        int index = y * nX + x;
+        depth[index] = (float) distance;
+        normal[3 * index] = (float) n.getX();
+        normal[3 * index + 1] = (float) n.getY();
+        normal[3 * index + 2] = (float) n.getZ();
+        albedo[3 * index] = (float) kD.getD1();
+        albedo[3 * index + 1] = (float) kD.getD2();
+        albedo[3 * index + 2] = (float) kD.getD3();
+        ids[index] = id;
+    }
+
+    /**
+     * Writes a pixel whose ray hit nothing
+     *
+     * @param x the column
+     * @param y the row
+     */
+    public void writeMiss(int x, int y) {
+        int index = y * nX + x;
+        depth[index] = 0;
+        normal[3 * index] = normal[3 * index + 1] = normal[3 * index + 2] = 0;
+        albedo[3 * index] = albedo[3 * index + 1] = albedo[3 * index + 2] = 0;
+        ids[index] = 0;
+    }
+
+    /**
+     * Get the hit distance of a pixel
+     *
+     * @param x the column
+     * @param y the row
+     * @return the distance, 0 without a hit
+     */
+    public double getDepth(int x, int y) {
+        return depth[y * nX + x];
+    }
+
+    /**
+     * Get the normal of a pixel's hit
+     *
+     * @param x the column
+     * @param y the row
+     * @return the normal's x, y and z, zeros without a hit
+     */
+    public Double3 getNormal(int x, int y) {
+        return triple(normal, y * nX + x);
+    }
+
+    /**
+     * Get the albedo of a pixel's hit
+     *
+     * @param x the column
+     * @param y the row
+     * @return the albedo's r, g and b, zeros without a hit
+     */
+    public Double3 getAlbedo(int x, int y) {
+        return triple(albedo, y * nX + x);
+    }
+
+    /**
+     * Get the id of the geometry a pixel's ray hit
+     *
+     * @param x the column
+     * @param y the row
+     * @return the id, 0 without a hit
+     */
+    public int getObjectId(int x, int y) {
+        return ids[y * nX + x];
+    }
+
+    /**
+     * Reads the three values of a pixel
+     *
+     * @param buffer the buffer
+     * @param index  the index of the pixel
+     * @return the values
+     */
+    private static Double3 triple(float[] buffer, int index) {
+        return new Double3(buffer[3 * index], buffer[3 * index + 1], buffer[3 * index + 2]);
+    }
+
+    /**
+     * Writes the buffers as Portable Float Maps into the images folder - imageName_depth.pfm and
+     * imageName_id.pfm of a single channel, imageName_normal.pfm and imageName_albedo.pfm of three channels
+     */
+    public void writeToFiles() {
+        try {
+            HdrWriter.writePfm(file("depth"), nX, nY, 1,
+                    (y, row) -> System.arraycopy(depth, y * nX, row, 0, nX));
+            HdrWriter.writePfm(file("normal"), nX, nY, 3,
+                    (y, row) -> System.arraycopy(normal, 3 * y * nX, row, 0, 3 * nX));
+            HdrWriter.writePfm(file("albedo"), nX, nY, 3,
+                    (y, row) -> System.arraycopy(albedo, 3 * y * nX, row, 0, 3 * nX));
+            //the ids are exact as floats up to 2^24
+            HdrWriter.writePfm(file("id"), nX, nY, 1, (y, row) -> {
+                for (int x = 0, index = y * nX; x < nX; ++x, ++index)
+                    row[x] = ids[index];
+            });
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing directory " + ImageWriter.FOLDER_PATH, e);
+        }
+    }
+
+    /**
+     * Provides the path of a buffer file
+     *
+     * @param buffer the buffer's name
+     * @return the path
+     */
+    private Path file(String buffer) {
+        return Path.of(ImageWriter.FOLDER_PATH, imageName + '_' + buffer + ".pfm");
+    }
+}
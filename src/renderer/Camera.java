@@ -2,8 +2,15 @@ package renderer;
 
 import primitives.*;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.random.RandomGenerator;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -14,6 +21,11 @@ import static primitives.Util.isZero;
  */
 public class Camera implements Cloneable {
 
+    /**
+     * The deepest anti-aliasing subdivision, a grid of 256 squares along a pixel's side
+     */
+    private static final int MAX_ANTI_ALIASING_DEPTH = 8;
+
     /**
      * Point location for camera
      */
@@ -62,6 +74,105 @@ public class Camera implements Cloneable {
      */
     private int threadsCount = 0;
 
+    /**
+     * Size of the square tiles handed to the rendering threads, 0 for single pixels
+     */
+    private int tileSize = 0;
+
+    /**
+     * Amount of pixels a rendering thread takes at once
+     */
+    private int pixelBatch = 1;
+
+    /**
+     * Progress printing interval in seconds, 0 for no printing
+     */
+    private double printInterval = 0;
+
+    /**
+     * Executor running the rendering tasks, null to use threads of the camera itself
+     */
+    private ExecutorService executor;
+
+    /**
+     * Whether the random generator is seeded per pixel
+     */
+    private boolean seeded = false;
+
+    /**
+     * Seed of the random generators of the pixels
+     */
+    private long seed;
+
+    /**
+     * Maximal depth of the adaptive anti-aliasing subdivision of a pixel, 0 for no anti-aliasing
+     */
+    private int antiAliasingDepth = 0;
+
+    /**
+     * Color difference (0-255 per color component) between the corners of a square which subdivides it
+     */
+    private double antiAliasingThreshold = 0;
+
+    /**
+     * Maximal number of passes of the progressive rendering
+     */
+    private int maxPasses = 16;
+
+    /**
+     * Time limit of the progressive rendering in seconds, 0 for no limit
+     */
+    private double maxSeconds = 0;
+
+    /**
+     * Root mean square change of the pixels by a pass which stops the progressive rendering, 0 for no limit
+     */
+    private double convergence = 0;
+
+    /**
+     * Sums of the colors of the passes (r, g and b of every pixel row by row), null when rendering a single pass
+     */
+    private float[] accumulation;
+
+    /**
+     * Index of the pass being rendered
+     */
+    private int pass;
+
+    /**
+     * Sum of the squared changes of the pixels' averages by the pass being rendered
+     */
+    private DoubleAdder change;
+
+    /**
+     * The most shading rays traced for a pixel, 0 for no limit
+     */
+    private int rayBudget = 0;
+
+    /**
+     * The rays left in the budgets of the pixels by the passes so far (row by row), null when rendering
+     * a single pass or without a budget
+     */
+    private int[] pixelBudgets;
+
+    /**
+     * Auxiliary buffers filled along the image, null for none
+     */
+    private AovBuffers aovBuffers;
+
+    /**
+     * Listener of the passes of the progressive rendering
+     */
+    @FunctionalInterface
+    public interface PassListener {
+        /**
+         * Called after every pass, when the image writer holds the average of the passes so far
+         *
+         * @param passes number of passes done
+         * @param change root mean square change of the pixels by the last pass, infinity after the first pass
+         */
+        void passDone(int passes, double change);
+    }
 
     /**
      * Private constructor to create an item of type camera
@@ -162,19 +273,42 @@ public class Camera implements Cloneable {
      * orientation vectors (right, up, and toward).
      */
     public Ray constructRay(int nX, int nY, int j, int i) {
-        //calc center of vp
-        Point pIJ = location.add(to.scale(distance));
+        return constructRay(nX, nY, j, i, 0, 0);
+    }
+
+    /**
+     * Constructs a ray through a point in a pixel of the view plane
+     *
+     * @param nX Number of pixels in the view plane in the x-direction (width).
+     * @param nY Number of pixels in the view plane in the y-direction (height).
+     * @param j  The pixel column index (x-coordinate).
+     * @param i  The pixel row index (y-coordinate).
+     * @param dX offset of the point from the pixel center to the right, in pixels
+     * @param dY offset of the point from the pixel center downwards, in pixels
+     * @return The constructed ray through the point.
+     */
+    private Ray constructRay(int nX, int nY, int j, int i, double dX, double dY) {
+        //calc center of vp, by components to spare the intermediate points
+        double x = location.getX() + to.getX() * distance;
+        double y = location.getY() + to.getY() * distance;
+        double z = location.getZ() + to.getZ() * distance;
 
-        double yI = -(i - (nY - 1) / 2d) * (height / nY);
-        double xJ = (j - (nX - 1) / 2d) * (width / nX);
+        double yI = -(i + dY - (nY - 1) / 2d) * (height / nY);
+        double xJ = (j + dX - (nX - 1) / 2d) * (width / nX);
 
         //move point of pixel on vp
-        if (!isZero(xJ))
-            pIJ = pIJ.add(right.scale(xJ));
-        if (!isZero(yI))
-            pIJ = pIJ.add(up.scale(yI));
+        if (!isZero(xJ)) {
+            x += right.getX() * xJ;
+            y += right.getY() * xJ;
+            z += right.getZ() * xJ;
+        }
+        if (!isZero(yI)) {
+            x += up.getX() * yI;
+            y += up.getY() * yI;
+            z += up.getZ() * yI;
+        }
 
-        return new Ray(location, pIJ.subtract(location));
+        return new Ray(location, new Vector(x - location.getX(), y - location.getY(), z - location.getZ()));
     }
 
     /**
@@ -183,47 +317,229 @@ public class Camera implements Cloneable {
      * @return the camera
      */
     public Camera renderImage() {
+        accumulation = null;
+        pass = 0;
+        renderPass(imageWriter.getNx(), imageWriter.getNy());
+        return this;
+    }
 
+    /**
+     * Render the image progressively - every pass traces one more ray per pixel (the first through the pixel
+     * center, the next ones through random points in the pixel) and the image writer gets the average of
+     * the passes after each of them. The rendering stops after the maximal number of passes, after the pass
+     * which exceeds the time limit, or after a pass which changes the pixels less than the convergence threshold.
+     *
+     * @param listener listener called after every pass, e.g. for writing a preview, may be null
+     * @return the camera
+     * @throws IllegalStateException if the image writer streams the image, as every pass rewrites the pixels,
+     *                               or the ray budget of a pixel is lower than the maximal number of passes
+     */
+    public Camera renderProgressive(PassListener listener) {
+        if (imageWriter.isStreamed())
+            throw new IllegalStateException("A streamed image can't be rendered progressively");
+        if (rayBudget > 0 && rayBudget < maxPasses)
+            throw new IllegalStateException("The ray budget of a pixel must cover a ray per pass");
         final int nX = imageWriter.getNx();
         final int nY = imageWriter.getNy();
+        final long start = System.nanoTime();
 
-        pixelManager = new PixelManager(nY, nX, 0);
-        if (threadsCount == 0)
-            for (int i = 0; i < nY; ++i)
-                for (int j = 0; j < nX; ++j)
-                    castRay(nX, nY, j, i);
-
-        else { // see further... option 2
-            var threads = new LinkedList<Thread>(); // list of threads
-            while (threadsCount-- > 0) // add appropriate number of threads
-                threads.add(new Thread(() -> { // add a thread with its code
-                    PixelManager.Pixel pixel; // current pixel(row,col)
-                    // allocate pixel(row,col) in loop until there are no more pixels
-                    while ((pixel = pixelManager.nextPixel()) != null)
-                        // cast ray through pixel (and color it – inside castRay)
-                        castRay(nX, nY, pixel.col(), pixel.row());
-                }));
-            // start all the threads
-            for (Thread thread : threads)
-                thread.start();
-            // wait until all the threads have finished
-            try {
-                for (Thread thread : threads)
-                    thread.join();
-            } catch (InterruptedException ignore) {
+        accumulation = new float[3 * nX * nY];
+        if (rayBudget > 0) {
+            pixelBudgets = new int[nX * nY];
+            Arrays.fill(pixelBudgets, rayBudget);
+        }
+        try {
+            for (pass = 0; pass < maxPasses; ) {
+                change = new DoubleAdder();
+                renderPass(nX, nY);
+                double rms = pass == 0 ? Double.POSITIVE_INFINITY : Math.sqrt(change.sum() / (3d * nX * nY));
+                ++pass;
+                writeAverage(nX, nY);
+                if (listener != null) listener.passDone(pass, rms);
+                if (rms < convergence || maxSeconds > 0 && (System.nanoTime() - start) / 1e9 >= maxSeconds)
+                    break;
             }
+        } finally {
+            accumulation = null;
+            pixelBudgets = null;
         }
         return this;
     }
 
+    /**
+     * Write the average of the passes so far into the image writer
+     *
+     * @param nX number of pixels in the x-direction
+     * @param nY number of pixels in the y-direction
+     */
+    private void writeAverage(int nX, int nY) {
+        double scale = 1d / pass;
+        for (int row = 0, index = 0; row < nY; ++row)
+            for (int col = 0; col < nX; ++col, index += 3)
+                imageWriter.writePixel(col, row, new Color(accumulation[index] * scale,
+                        accumulation[index + 1] * scale, accumulation[index + 2] * scale));
+    }
+
+    /**
+     * Render a pass over all the pixels
+     *
+     * @param nX number of pixels in the x-direction
+     * @param nY number of pixels in the y-direction
+     */
+    private void renderPass(int nX, int nY) {
+        pixelManager = new PixelManager(nY, nX, pixelBatch, printInterval);
+        try {
+            if (threadsCount == 0 && executor == null)
+                for (int i = 0; i < nY; ++i)
+                    for (int j = 0; j < nX; ++j)
+                        castRay(nX, nY, j, i);
+            else
+                renderParallel(nX, nY);
+        } finally {
+            pixelManager.finish();
+        }
+    }
+
+    /**
+     * Render the image by tasks of an executor - the camera's executor if it was given, otherwise a pool
+     * of the camera's threads which lives for this rendering only.
+     * With tiles, every tile is a task (a work stealing pool splits the tiles between its threads by halves),
+     * otherwise every worker task takes batches of pixels until there are no more pixels.
+     *
+     * @param nX number of pixels in the x-direction
+     * @param nY number of pixels in the y-direction
+     */
+    private void renderParallel(int nX, int nY) {
+        int workers = threadsCount > 0 ? threadsCount : Runtime.getRuntime().availableProcessors();
+        ExecutorService service = executor != null ? executor
+                : tileSize > 0 ? new ForkJoinPool(workers) : Executors.newFixedThreadPool(workers);
+        List<Future<?>> tasks = new LinkedList<>();
+        try {
+            if (tileSize > 0) {
+                int tilesX = (nX + tileSize - 1) / tileSize;
+                int tiles = tilesX * ((nY + tileSize - 1) / tileSize);
+                if (service instanceof ForkJoinPool pool)
+                    tasks.add(pool.submit(new TilesTask(nX, nY, tilesX, 0, tiles)));
+                else
+                    for (int tile = 0; tile < tiles; ++tile) {
+                        final int current = tile;
+                        tasks.add(service.submit(() -> renderTile(nX, nY, tilesX, current)));
+                    }
+            } else
+                for (int i = 0; i < workers; ++i)
+                    tasks.add(service.submit(() -> {
+                        // allocate a batch of pixels in loop until there are no more pixels
+                        for (long first; (first = pixelManager.nextBatch()) >= 0; )
+                            for (long pixel = first, end = pixelManager.batchEnd(first); pixel < end; ++pixel)
+                                // cast ray through pixel (and color it – inside castRay)
+                                castRay(nX, nY, pixelManager.col(pixel), pixelManager.row(pixel));
+                    }));
+
+            // wait until all the tasks have finished
+            for (Future<?> task : tasks)
+                task.get();
+        } catch (InterruptedException e) {
+            for (Future<?> task : tasks)
+                task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rendering was interrupted", e);
+        } catch (ExecutionException e) {
+            for (Future<?> task : tasks)
+                task.cancel(true);
+            throw new IllegalStateException("Rendering failed", e.getCause());
+        } finally {
+            if (service != executor)
+                service.shutdown();
+        }
+    }
+
+    /**
+     * Render a single tile
+     *
+     * @param nX     number of pixels in the x-direction
+     * @param nY     number of pixels in the y-direction
+     * @param tilesX number of tiles in a row
+     * @param tile   the tile index (row by row)
+     */
+    private void renderTile(int nX, int nY, int tilesX, int tile) {
+        int startCol = (tile % tilesX) * tileSize;
+        int startRow = (tile / tilesX) * tileSize;
+        int endCol = Math.min(startCol + tileSize, nX);
+        int endRow = Math.min(startRow + tileSize, nY);
+        for (int row = startRow; row < endRow; ++row)
+            for (int col = startCol; col < endCol; ++col)
+                renderPixel(nX, nY, col, row);
+        pixelManager.pixelsDone((endRow - startRow) * (endCol - startCol));
+    }
+
+    /**
+     * Task of rendering a range of tiles, it splits itself in halves until a single tile is left
+     */
+    private class TilesTask extends RecursiveAction {
+        /**
+         * Serialization version, the tasks are never serialized
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * number of pixels in the x-direction
+         */
+        private final int nX;
+        /**
+         * number of pixels in the y-direction
+         */
+        private final int nY;
+        /**
+         * number of tiles in a row
+         */
+        private final int tilesX;
+        /**
+         * first tile of the range
+         */
+        private final int from;
+        /**
+         * the tile after the range
+         */
+        private final int to;
+
+        /**
+         * Create a task for a range of tiles
+         *
+         * @param nX     number of pixels in the x-direction
+         * @param nY     number of pixels in the y-direction
+         * @param tilesX number of tiles in a row
+         * @param from   first tile of the range
+         * @param to     the tile after the range
+         */
+        TilesTask(int nX, int nY, int tilesX, int from, int to) {
+            this.nX = nX;
+            this.nY = nY;
+            this.tilesX = tilesX;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                renderTile(nX, nY, tilesX, from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TilesTask(nX, nY, tilesX, from, middle), new TilesTask(nX, nY, tilesX, middle, to));
+        }
+    }
+
     /**
      * Print a grid on the vp
      *
      * @param interval the interval between the lines
      * @param color    the color of the grid
      * @return the camera
+     * @throws IllegalStateException if the image writer streams the image, as the grid rewrites the pixels
      */
     public Camera printGrid(int interval, Color color) {
+        if (imageWriter.isStreamed())
+            throw new IllegalStateException("A grid can't be printed on a streamed image");
         int nx = imageWriter.getNx();
         int ny = imageWriter.getNy();
         int i, j;
@@ -261,15 +577,240 @@ public class Camera implements Cloneable {
      * @param row    the y index of the pixel
      */
     private void castRay(int nX, int nY, int column, int row) {
-        //a ray through the center of the pixel
-        Ray ray = constructRay(nX, nY, column, row);
-        //color of pixel
-        Color color = rayTracer.traceRay(ray);
-        //coloring the pixel
-        imageWriter.writePixel(column, row, color);
+        renderPixel(nX, nY, column, row);
         pixelManager.pixelDone();
     }
 
+    /**
+     * render a pixel in the current pass - color it, or add its color to the passes' sums
+     *
+     * @param nX     size of webcam in X
+     * @param nY     size of webcam in Y
+     * @param column the x index of the pixel
+     * @param row    the y index of the pixel
+     */
+    private void renderPixel(int nX, int nY, int column, int row) {
+        //color of pixel
+        Color color = tracePixel(nX, nY, column, row);
+        if (accumulation == null) {
+            //coloring the pixel
+            imageWriter.writePixel(column, row, color);
+            return;
+        }
+
+        //each pixel is rendered by a single thread in a pass, its sums need no locking
+        int index = 3 * (row * nX + column);
+        Double3 rgb = color.getRgb();
+        if (pass > 0)
+            change.add(squaredChange(index, rgb.getD1()) + squaredChange(index + 1, rgb.getD2())
+                    + squaredChange(index + 2, rgb.getD3()));
+        accumulation[index] += (float) rgb.getD1();
+        accumulation[index + 1] += (float) rgb.getD2();
+        accumulation[index + 2] += (float) rgb.getD3();
+    }
+
+    /**
+     * Calculates the squared change of the average of a color component by a new sample
+     *
+     * @param index  index of the component's sum
+     * @param sample the new sample
+     * @return the squared change of the average
+     */
+    private double squaredChange(int index, double sample) {
+        double delta = (sample - accumulation[index] / pass) / (pass + 1);
+        return delta * delta;
+    }
+
+    /**
+     * traces a ray through a pixel, with the pixel's own random generator if the camera is seeded.
+     * The first pass traces through the center of the pixel, the next ones through random points in it.
+     *
+     * @param nX     size of webcam in X
+     * @param nY     size of webcam in Y
+     * @param column the x index of the pixel
+     * @param row    the y index of the pixel
+     * @return the color of the pixel
+     */
+    private Color tracePixel(int nX, int nY, int column, int row) {
+        if (!seeded) return samplePixel(nX, nY, column, row);
+
+        //the pixel's random numbers don't depend on the thread or the order of the pixels
+        Util.seedRandom(seed, ((long) pass * nY + row) * nX + column);
+        try {
+            return samplePixel(nX, nY, column, row);
+        } finally {
+            Util.unseedRandom();
+        }
+    }
+
+    /**
+     * Calculates the color of a pixel - adaptively anti-aliased when rendering a single pass with anti-aliasing,
+     * otherwise by the ray of the current pass. All the rays of the pixel are traced within its ray budget.
+     *
+     * @param nX     size of webcam in X
+     * @param nY     size of webcam in Y
+     * @param column the x index of the pixel
+     * @param row    the y index of the pixel
+     * @return the color of the pixel
+     */
+    private Color samplePixel(int nX, int nY, int column, int row) {
+        if (antiAliasingDepth == 0 || accumulation != null) {
+            RayBudget budget = passBudget(nX, column, row);
+            Ray ray = pixelRay(nX, nY, column, row);
+            Color color = aovBuffers == null || pass > 0
+                    ? rayTracer.traceRay(ray, budget)
+                    : rayTracer.traceRay(ray, budget, aovBuffers, column, row);
+            if (pixelBudgets != null) pixelBudgets[row * nX + column] = budget.getRemaining();
+            return color;
+        }
+
+        //the corners of the squares on a grid of the finest subdivision, traced once at most - kept by their
+        //index on the grid, only the few traced ones, as most pixels are never subdivided
+        int size = 1 << antiAliasingDepth;
+        Map<Integer, Color> corners = new HashMap<>();
+        RayBudget budget = new RayBudget(rayBudget > 0 ? rayBudget : Integer.MAX_VALUE);
+        //the pixel's corners (and its center for the auxiliary buffers, a point of the grid) are traced anyway,
+        //a ray of the budget is reserved for each of them until it is traced
+        if (aovBuffers != null)
+            corners.put(size / 2 * (size + 2), rayTracer.traceRay(constructRay(nX, nY, column, row, 0, 0),
+                    budget.reserve(4), aovBuffers, column, row));
+        for (int corner = 0; corner < 4; ++corner)
+            gridColor(nX, nY, column, row, corners, size, (corner & 1) * size, (corner >> 1) * size,
+                    budget.reserve(3 - corner));
+        return sampleSquare(nX, nY, column, row, corners, size, 0, 0, size, budget);
+    }
+
+    /**
+     * Provides the ray budget of a pixel in the current pass - the whole budget in a single pass, otherwise
+     * the rays left by the former passes, of which a ray is reserved for each of the next passes
+     *
+     * @param nX     size of webcam in X
+     * @param column the x index of the pixel
+     * @param row    the y index of the pixel
+     * @return the budget
+     */
+    private RayBudget passBudget(int nX, int column, int row) {
+        if (pixelBudgets == null) return new RayBudget(rayBudget > 0 ? rayBudget : Integer.MAX_VALUE);
+        return new RayBudget(pixelBudgets[row * nX + column]).reserve(maxPasses - pass - 1);
+    }
+
+    /**
+     * Calculates the average color of a square in a pixel by its corners, the square is divided into four
+     * recursively while its corners differ by more than the threshold, it is larger than the finest grid
+     * and the budget has a ray for each of the new grid points of the division
+     *
+     * @param nX      size of webcam in X
+     * @param nY      size of webcam in Y
+     * @param column  the x index of the pixel
+     * @param row     the y index of the pixel
+     * @param corners the colors of the traced grid points by their index on the grid, row by row,
+     *                including the square's corners
+     * @param size    the number of the grid squares along the pixel's side
+     * @param x       the x index of the square's top left corner on the grid
+     * @param y       the y index of the square's top left corner on the grid
+     * @param span    the side of the square in grid squares
+     * @param budget  the ray budget of the pixel
+     * @return the average color of the square
+     */
+    private Color sampleSquare(int nX, int nY, int column, int row, Map<Integer, Color> corners, int size,
+                               int x, int y, int span, RayBudget budget) {
+        Color c1 = corners.get(y * (size + 1) + x);
+        Color c2 = corners.get(y * (size + 1) + x + span);
+        Color c3 = corners.get((y + span) * (size + 1) + x);
+        Color c4 = corners.get((y + span) * (size + 1) + x + span);
+        if (span == 1 || !differ(c1.getRgb(), c2.getRgb(), c3.getRgb(), c4.getRgb()))
+            return c1.add(c2, c3, c4).reduce(4);
+
+        //the new grid points - the middles of the edges and the center - are traced before the division,
+        //so that a sub-square never lacks a corner for the budget
+        int half = span / 2;
+        int[] points = {x + half, y, x, y + half, x + half, y + half, x + span, y + half, x + half, y + span};
+        int missing = 0;
+        for (int i = 0; i < points.length; i += 2)
+            if (!corners.containsKey(points[i + 1] * (size + 1) + points[i])) ++missing;
+        if (budget.getAvailable() < missing)
+            return c1.add(c2, c3, c4).reduce(4);
+        for (int i = 0; i < points.length; i += 2)
+            if (!corners.containsKey(points[i + 1] * (size + 1) + points[i]))
+                gridColor(nX, nY, column, row, corners, size, points[i], points[i + 1], budget.reserve(--missing));
+
+        return sampleSquare(nX, nY, column, row, corners, size, x, y, half, budget)
+                .add(sampleSquare(nX, nY, column, row, corners, size, x + half, y, half, budget),
+                        sampleSquare(nX, nY, column, row, corners, size, x, y + half, half, budget),
+                        sampleSquare(nX, nY, column, row, corners, size, x + half, y + half, half, budget))
+                .reduce(4);
+    }
+
+    /**
+     * Provides the color of a grid point in a pixel, tracing it on the first demand
+     *
+     * @param nX      size of webcam in X
+     * @param nY      size of webcam in Y
+     * @param column  the x index of the pixel
+     * @param row     the y index of the pixel
+     * @param corners the colors of the traced grid points by their index on the grid, row by row
+     * @param size    the number of the grid squares along the pixel's side
+     * @param x       the x index of the point on the grid
+     * @param y       the y index of the point on the grid
+     * @param budget  the ray budget of the pixel, with a ray available
+     * @return the color
+     */
+    private Color gridColor(int nX, int nY, int column, int row, Map<Integer, Color> corners, int size,
+                            int x, int y, RayBudget budget) {
+        int index = y * (size + 1) + x;
+        Color color = corners.get(index);
+        if (color == null) {
+            color = rayTracer.traceRay(
+                    constructRay(nX, nY, column, row, (double) x / size - 0.5, (double) y / size - 0.5), budget);
+            corners.put(index, color);
+        }
+        return color;
+    }
+
+    /**
+     * Checks whether the corners of a square differ by more than the anti-aliasing threshold in any component
+     *
+     * @param c1 first corner
+     * @param c2 second corner
+     * @param c3 third corner
+     * @param c4 fourth corner
+     * @return true if the corners differ
+     */
+    private boolean differ(Double3 c1, Double3 c2, Double3 c3, Double3 c4) {
+        return spread(c1.getD1(), c2.getD1(), c3.getD1(), c4.getD1()) > antiAliasingThreshold
+                || spread(c1.getD2(), c2.getD2(), c3.getD2(), c4.getD2()) > antiAliasingThreshold
+                || spread(c1.getD3(), c2.getD3(), c3.getD3(), c4.getD3()) > antiAliasingThreshold;
+    }
+
+    /**
+     * Calculates the difference between the largest and the smallest of four values
+     *
+     * @param a first value
+     * @param b second value
+     * @param c third value
+     * @param d fourth value
+     * @return the difference
+     */
+    private static double spread(double a, double b, double c, double d) {
+        return Math.max(Math.max(a, b), Math.max(c, d)) - Math.min(Math.min(a, b), Math.min(c, d));
+    }
+
+    /**
+     * Constructs the ray of the current pass through a pixel
+     *
+     * @param nX     size of webcam in X
+     * @param nY     size of webcam in Y
+     * @param column the x index of the pixel
+     * @param row    the y index of the pixel
+     * @return the ray
+     */
+    private Ray pixelRay(int nX, int nY, int column, int row) {
+        //a ray through the center of the pixel
+        if (pass == 0) return constructRay(nX, nY, column, row);
+        RandomGenerator random = Util.getRandom();
+        return constructRay(nX, nY, column, row, random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+    }
+
     /**
      * The Builder class is used to construct instances of Camera
      */
@@ -406,6 +947,135 @@ public class Camera implements Cloneable {
         }
 
 
+        /**
+         * Set an executor to run the rendering tasks, instead of starting new threads for every rendering.
+         * The executor may be shared by several cameras rendering at the same time,
+         * e.g. a fixed thread pool or {@link Executors#newVirtualThreadPerTaskExecutor()}.
+         * The camera never shuts it down.
+         * The number of threads set by {@link #setMultithreading(int)} is the number of pixel workers
+         * submitted to the executor, by default it is the number of processors
+         *
+         * @param executor the executor, null to use threads of the camera itself
+         * @return the camera builder
+         */
+        public Builder setExecutor(ExecutorService executor) {
+            camera.executor = executor;
+            return this;
+        }
+
+        /**
+         * Set the size of the square tiles the rendering threads take,
+         * 0 makes the threads take one pixel at a time
+         *
+         * @param tileSize the tile size in pixels
+         * @return the camera builder
+         */
+        public Builder setTileSize(int tileSize) {
+            camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Set the amount of pixels a rendering thread takes at once
+         *
+         * @param pixelBatch the amount of pixels
+         * @return the camera builder
+         */
+        public Builder setPixelBatch(int pixelBatch) {
+            camera.pixelBatch = pixelBatch;
+            return this;
+        }
+
+        /**
+         * Seed the random generators of the pixels, so that the renderings are reproducible
+         * whatever the threads and the order of the pixels are
+         *
+         * @param seed the seed
+         * @return the camera builder
+         */
+        public Builder setSeed(long seed) {
+            camera.seeded = true;
+            camera.seed = seed;
+            return this;
+        }
+
+        /**
+         * Set adaptive anti-aliasing - every pixel is traced at its four corners, and a square whose corners
+         * differ by more than the threshold is divided into four, recursively down to the maximal depth
+         * (a grid of 2^depth squares along the pixel's side). The progressive rendering doesn't use it,
+         * its passes are anti-aliased by their random points in the pixels.
+         *
+         * @param depth     the maximal depth of the subdivision (up to 8), 0 for a single ray through the pixel center
+         * @param threshold the color difference (0-255 per color component) between the corners
+         *                  which subdivides a square
+         * @return the camera builder
+         */
+        public Builder setAntiAliasing(int depth, double threshold) {
+            if (depth < 0 || depth > MAX_ANTI_ALIASING_DEPTH || threshold < 0)
+                throw new IllegalArgumentException("Illegal argument in setAntiAliasing");
+            camera.antiAliasingDepth = depth;
+            camera.antiAliasingThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Set the limits of the progressive rendering, see {@link Camera#renderProgressive(PassListener)}
+         *
+         * @param maxPasses   the maximal number of passes
+         * @param maxSeconds  the time limit in seconds, 0 for no limit
+         * @param convergence root mean square change of the pixels (0-255 per color component) by a pass
+         *                    which stops the rendering, 0 for no limit
+         * @return the camera builder
+         */
+        public Builder setProgressive(int maxPasses, double maxSeconds, double convergence) {
+            if (maxPasses < 1 || maxSeconds < 0 || convergence < 0)
+                throw new IllegalArgumentException("Illegal argument in setProgressive");
+            camera.maxPasses = maxPasses;
+            camera.maxSeconds = maxSeconds;
+            camera.convergence = convergence;
+            return this;
+        }
+
+        /**
+         * Set the budget of the shading rays of a pixel - the rays traced through the pixel and their reflection
+         * and refraction rays, not the shadow rays. The anti-aliasing stops dividing a pixel and the tracer
+         * stops tracing the deeper levels of the paths when the budget runs out. With anti-aliasing the
+         * pixel's corners are always traced, the progressive rendering traces a ray per pass at least.
+         *
+         * @param rays the most rays traced for a pixel, 0 for no limit
+         * @return the camera builder
+         */
+        public Builder setRayBudget(int rays) {
+            if (rays < 0)
+                throw new IllegalArgumentException("Illegal argument in setRayBudget");
+            camera.rayBudget = rays;
+            return this;
+        }
+
+        /**
+         * Set auxiliary buffers to fill along the image by the hits of the rays through the pixels' centers -
+         * in the first pass of the progressive rendering. With anti-aliasing the center is traced even when
+         * the pixel isn't subdivided, an extra ray per pixel at most.
+         *
+         * @param aovBuffers the buffers, of the image's size, null for none
+         * @return the camera builder
+         */
+        public Builder setAovBuffers(AovBuffers aovBuffers) {
+            camera.aovBuffers = aovBuffers;
+            return this;
+        }
+
+        /**
+         * Set printing of the rendering progress
+         *
+         * @param interval progress printing interval in seconds, 0 for no printing
+         * @return the camera builder
+         */
+        public Builder setDebugPrint(double interval) {
+            camera.printInterval = interval;
+            return this;
+        }
+
         /**
          * checks all camera parameters are valid
          *
@@ -452,6 +1122,16 @@ public class Camera implements Cloneable {
             if (alignZero(camera.width) <= 0 || alignZero(camera.height) <= 0)
                 throw new IllegalArgumentException("width and/or height must be positive!");
             if (camera.threadsCount < 0) throw new IllegalArgumentException("Number of threads must be not neg!");
+            if (camera.tileSize < 0) throw new IllegalArgumentException("Tile size must be not neg!");
+            if (camera.pixelBatch < 1) throw new IllegalArgumentException("Pixel batch must be positive!");
+            if (camera.printInterval < 0) throw new IllegalArgumentException("Print interval must be not neg!");
+            if (camera.aovBuffers != null && (camera.aovBuffers.getNx() != camera.imageWriter.getNx()
+                    || camera.aovBuffers.getNy() != camera.imageWriter.getNy()))
+                throw new IllegalArgumentException("AOV buffers must be of the image size!");
+            //the rays traced anyway - the corners of an anti-aliased pixel and its center for the buffers
+            int minRays = camera.antiAliasingDepth == 0 ? 1 : camera.aovBuffers == null ? 4 : 5;
+            if (camera.rayBudget > 0 && camera.rayBudget < minRays)
+                throw new IllegalArgumentException("Ray budget must cover the corners of a pixel!");
 
             //calc missing information
             camera.right = camera.to.crossProduct(camera.up).normalize();
@@ -0,0 +1,309 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Writers of high dynamic range image files - Portable Float Map, Radiance RGBE and uncompressed
+ * scanline OpenEXR. The rows are read one at a time, so the image is never copied as a whole.
+ * The values are written as they are, the caller scales them to the file's range.
+ */
+final class HdrWriter {
+    /**
+     * Reader of the image rows
+     */
+    @FunctionalInterface
+    interface RowReader {
+        /**
+         * Reads a row of pixels as floats - r, g and b of every pixel, or a single value of a grayscale file
+         *
+         * @param y   the row, 0 is the top row
+         * @param rgb the floats of the row
+         */
+        void read(int y, float[] rgb);
+    }
+
+    /**
+     * OpenEXR magic number
+     */
+    private static final int EXR_MAGIC = 20000630;
+    /**
+     * OpenEXR FLOAT pixel type
+     */
+    private static final int EXR_FLOAT = 2;
+    /**
+     * The channels of the OpenEXR files, the format requires them in alphabetical order
+     */
+    private static final String[] EXR_CHANNELS = {"B", "G", "R"};
+    /**
+     * Offsets of the channels in a pixel of the buffer, by the order of {@link #EXR_CHANNELS}
+     */
+    private static final int[] EXR_OFFSETS = {2, 1, 0};
+
+    /**
+     * Longest run of a Radiance run length encoding
+     */
+    private static final int MAX_RUN = 127;
+    /**
+     * Longest literal sequence of a Radiance run length encoding
+     */
+    private static final int MAX_LITERAL = 128;
+    /**
+     * Shortest run worth encoding as a run
+     */
+    private static final int MIN_RUN = 3;
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private HdrWriter() {
+    }
+
+    /**
+     * Writes a Portable Float Map of RGB - little endian floats, the bottom row first
+     *
+     * @param path the file
+     * @param nX   number of pixels in a row
+     * @param nY   number of rows
+     * @param rows the reader of the rows
+     * @throws IOException if the file can't be written
+     */
+    static void writePfm(Path path, int nX, int nY, RowReader rows) throws IOException {
+        writePfm(path, nX, nY, 3, rows);
+    }
+
+    /**
+     * Writes a Portable Float Map of a single channel (grayscale) or of three channels (RGB)
+     *
+     * @param path     the file
+     * @param nX       number of pixels in a row
+     * @param nY       number of rows
+     * @param channels number of channels, 1 or 3
+     * @param rows     the reader of the rows, it reads the channels of every pixel
+     * @throws IOException if the file can't be written
+     */
+    static void writePfm(Path path, int nX, int nY, int channels, RowReader rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            String header = (channels == 1 ? "Pf\n" : "PF\n") + nX + " " + nY + "\n-1.0\n";
+            write(channel, ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+            float[] rgb = new float[channels * nX];
+            ByteBuffer row = ByteBuffer.allocate(4 * channels * nX).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = nY - 1; y >= 0; --y) {
+                rows.read(y, rgb);
+                row.clear();
+                row.asFloatBuffer().put(rgb);
+                write(channel, row);
+            }
+        }
+    }
+
+    /**
+     * Writes a Radiance RGBE file, its scanlines run length encoded when their width allows it
+     *
+     * @param path the file
+     * @param nX   number of pixels in a row
+     * @param nY   number of rows
+     * @param rows the reader of the rows
+     * @throws IOException if the file can't be written
+     */
+    static void writeHdr(Path path, int nX, int nY, RowReader rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            String header = "#?RADIANCE\nFORMAT=32-bit_rle_rgbe\n\n-Y " + nY + " +X " + nX + "\n";
+            write(channel, ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+            //the encoding is defined for widths of 8 to 32767 pixels only
+            boolean encoded = nX >= 8 && nX <= 0x7fff;
+            float[] rgb = new float[3 * nX];
+            byte[] rgbe = new byte[4 * nX];
+            //a scanline's encoding is never longer than its four components plus a count per byte
+            ByteBuffer row = ByteBuffer.allocate(encoded ? 4 + 8 * nX : 4 * nX);
+            for (int y = 0; y < nY; ++y) {
+                rows.read(y, rgb);
+                for (int x = 0; x < nX; ++x)
+                    toRgbe(rgb[3 * x], rgb[3 * x + 1], rgb[3 * x + 2], rgbe, 4 * x);
+                row.clear();
+                if (encoded) {
+                    row.put((byte) 2).put((byte) 2).put((byte) (nX >> 8)).put((byte) nX);
+                    for (int component = 0; component < 4; ++component)
+                        encodeComponent(rgbe, component, nX, row);
+                } else
+                    row.put(rgbe);
+                row.flip();
+                write(channel, row);
+            }
+        }
+    }
+
+    /**
+     * Converts a color into the shared exponent RGBE format
+     *
+     * @param r      red
+     * @param g      green
+     * @param b      blue
+     * @param rgbe   the converted pixels
+     * @param offset offset of the pixel in the converted pixels
+     */
+    private static void toRgbe(float r, float g, float b, byte[] rgbe, int offset) {
+        float max = Math.max(r, Math.max(g, b));
+        if (!(max >= 1e-32f)) {
+            rgbe[offset] = rgbe[offset + 1] = rgbe[offset + 2] = rgbe[offset + 3] = 0;
+            return;
+        }
+        //max = mantissa * 2^exponent with the mantissa in [0.5, 1)
+        int exponent = Math.getExponent(max) + 1;
+        double scale = Math.scalb(256d, -exponent);
+        rgbe[offset] = (byte) (Math.max(r, 0) * scale);
+        rgbe[offset + 1] = (byte) (Math.max(g, 0) * scale);
+        rgbe[offset + 2] = (byte) (Math.max(b, 0) * scale);
+        rgbe[offset + 3] = (byte) (exponent + 128);
+    }
+
+    /**
+     * Run length encodes a component of a scanline - a count above 128 is followed by a byte repeated
+     * count - 128 times, any other count is followed by count literal bytes
+     *
+     * @param rgbe      the pixels of the scanline
+     * @param component the component
+     * @param nX        number of pixels in the scanline
+     * @param out       the encoding
+     */
+    private static void encodeComponent(byte[] rgbe, int component, int nX, ByteBuffer out) {
+        int x = 0;
+        while (x < nX) {
+            int run = runLength(rgbe, component, nX, x, MAX_RUN);
+            if (run >= MIN_RUN) {
+                out.put((byte) (128 + run)).put(rgbe[4 * x + component]);
+                x += run;
+                continue;
+            }
+            //literal bytes up to the next run
+            int start = x;
+            while (x < nX && x - start < MAX_LITERAL && runLength(rgbe, component, nX, x, MIN_RUN) < MIN_RUN)
+                ++x;
+            out.put((byte) (x - start));
+            for (int i = start; i < x; ++i)
+                out.put(rgbe[4 * i + component]);
+        }
+    }
+
+    /**
+     * Measures the run of equal bytes of a component starting at a pixel
+     *
+     * @param rgbe      the pixels of the scanline
+     * @param component the component
+     * @param nX        number of pixels in the scanline
+     * @param x         the starting pixel
+     * @param max       the longest run to measure
+     * @return the run's length
+     */
+    private static int runLength(byte[] rgbe, int component, int nX, int x, int max) {
+        int run = 1;
+        while (x + run < nX && run < max && rgbe[4 * (x + run) + component] == rgbe[4 * x + component])
+            ++run;
+        return run;
+    }
+
+    /**
+     * Writes an uncompressed scanline OpenEXR file with float B, G and R channels, one scanline per chunk
+     *
+     * @param path the file
+     * @param nX   number of pixels in a row
+     * @param nY   number of rows
+     * @param rows the reader of the rows
+     * @throws IOException if the file can't be written
+     */
+    static void writeExr(Path path, int nX, int nY, RowReader rows) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(EXR_MAGIC).putInt(2);
+
+        attribute(header, "channels", "chlist", 18 * EXR_CHANNELS.length + 1);
+        for (String channel : EXR_CHANNELS) {
+            string(header, channel);
+            //pixel type, linear flag, 3 reserved bytes and the x and y sampling
+            header.putInt(EXR_FLOAT).putInt(0).putInt(1).putInt(1);
+        }
+        header.put((byte) 0);
+        attribute(header, "compression", "compression", 1);
+        header.put((byte) 0);
+        attribute(header, "dataWindow", "box2i", 16);
+        header.putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+        attribute(header, "displayWindow", "box2i", 16);
+        header.putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+        attribute(header, "lineOrder", "lineOrder", 1);
+        header.put((byte) 0);
+        attribute(header, "pixelAspectRatio", "float", 4);
+        header.putFloat(1);
+        attribute(header, "screenWindowCenter", "v2f", 8);
+        header.putFloat(0).putFloat(0);
+        attribute(header, "screenWindowWidth", "float", 4);
+        header.putFloat(1);
+        header.put((byte) 0);
+        header.flip();
+
+        //the offset table holds the position of every scanline chunk - its y, its size and its channels
+        int rowSize = 4 * EXR_CHANNELS.length * nX;
+        ByteBuffer offsets = ByteBuffer.allocate(8 * nY).order(ByteOrder.LITTLE_ENDIAN);
+        long position = header.limit() + 8L * nY;
+        for (int y = 0; y < nY; ++y, position += 8 + rowSize)
+            offsets.putLong(position);
+        offsets.flip();
+
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            write(channel, header);
+            write(channel, offsets);
+            float[] rgb = new float[3 * nX];
+            ByteBuffer row = ByteBuffer.allocate(8 + rowSize).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = 0; y < nY; ++y) {
+                rows.read(y, rgb);
+                row.clear();
+                row.putInt(y).putInt(rowSize);
+                for (int offset : EXR_OFFSETS)
+                    for (int index = offset; index < rgb.length; index += 3)
+                        row.putFloat(rgb[index]);
+                row.flip();
+                write(channel, row);
+            }
+        }
+    }
+
+    /**
+     * Puts the name, the type and the size of an OpenEXR header attribute, its value follows
+     *
+     * @param header the header
+     * @param name   the attribute name
+     * @param type   the attribute type
+     * @param size   the size of the value in bytes
+     */
+    private static void attribute(ByteBuffer header, String name, String type, int size) {
+        string(header, name);
+        string(header, type);
+        header.putInt(size);
+    }
+
+    /**
+     * Puts a null terminated string
+     *
+     * @param buffer the buffer
+     * @param string the string
+     */
+    private static void string(ByteBuffer buffer, String string) {
+        buffer.put(string.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer
+     *
+     * @param channel the channel
+     * @param buffer  the buffer
+     * @throws IOException if the writing fails
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -1,20 +1,33 @@
 package renderer;
 
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.imageio.ImageIO;
-
 import primitives.Color;
+import primitives.Double3;
+
+import static java.nio.file.StandardOpenOption.*;
 
 /**
  * Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible for holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution.<br/>
+ * The matrix is either an 8 bit RGB image, or a float RGB buffer keeping the colors unclamped
+ * for the high dynamic range files (PFM, Radiance HDR and OpenEXR), the 8 bit PNG image is converted
+ * from the buffer when it is written. The PNG file is compressed by strips in parallel.<br/>
+ * For images larger than the memory, the 8 bit pixels are kept in a temporary memory mapped file,
+ * so that only the pages of the pixels being rendered or written stay in memory.
+ * A streamed PNG image is written to a channel by bands of rows while the image is rendered,
+ * only the bands which aren't complete yet are kept in memory.
  *
  * @author Dan
  */
@@ -32,12 +45,37 @@ public class ImageWriter {
      * Directory path for the image file generation - relative to the user
      * directory
      */
-    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+    static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
     /**
-     * Image generation buffer (the matrix of the pixels)
+     * Image generation buffer (the matrix of the pixels), null when the pixels are kept elsewhere
      */
     private BufferedImage image;
+    /**
+     * Float buffer of the pixels - r, g and b of every pixel row by row, null when the pixels are kept elsewhere
+     */
+    private float[] pixels;
+    /**
+     * Bands of rows of the memory mapped file of the pixels - r, g and b bytes of every pixel row by row,
+     * null when the pixels are kept elsewhere
+     */
+    private MappedByteBuffer[] bands;
+    /**
+     * Number of rows in a band of the memory mapped file
+     */
+    private int bandRows;
+    /**
+     * The stream of a streamed PNG image, null when the pixels are kept elsewhere
+     */
+    private PngStream stream;
+    /**
+     * Maximal size of a band of the memory mapped file in bytes
+     */
+    private static final int MAX_BAND_BYTES = 1 << 30;
+    /**
+     * Scale of the colors in the high dynamic range files, 255 (full color component) is written as 1
+     */
+    private static final float HDR_SCALE = 1f / 255;
     /**
      * image file name, not including the file extension '.png'
      */
@@ -64,8 +102,91 @@ public class ImageWriter {
         image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
     }
 
+    /**
+     * Image Writer constructor accepting image name and View Plane parameters,
+     * with the choice of the float buffer
+     *
+     * @param imageName   the name of the image files
+     * @param nX          amount of pixels by Width
+     * @param nY          amount of pixels by height
+     * @param floatBuffer true to keep the pixels in a float buffer, false for an 8 bit image
+     */
+    public ImageWriter(String imageName, int nX, int nY, boolean floatBuffer) {
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+
+        if (floatBuffer)
+            pixels = new float[3 * nX * nY];
+        else
+            image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Image Writer constructor accepting image name and View Plane parameters, which keeps the 8 bit pixels
+     * in a temporary memory mapped file instead of the heap. The file is deleted once its mapping is released.
+     *
+     * @param imageName the name of the image files
+     * @param nX        amount of pixels by Width
+     * @param nY        amount of pixels by height
+     * @param directory the directory of the temporary file
+     */
+    public ImageWriter(String imageName, int nX, int nY, Path directory) {
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+
+        long rowBytes = 3L * nX;
+        if (rowBytes > MAX_BAND_BYTES) throw new IllegalArgumentException("Image rows are too wide");
+        bandRows = (int) (MAX_BAND_BYTES / rowBytes);
+        bands = new MappedByteBuffer[(nY + bandRows - 1) / bandRows];
+        try {
+            Path file = Files.createTempFile(directory, imageName, ".rgb");
+            //the mappings stay valid after the channel is closed, the file is gone when they are released
+            try (FileChannel channel = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE)) {
+                for (int band = 0; band < bands.length; ++band) {
+                    int rows = Math.min(bandRows, nY - band * bandRows);
+                    bands[band] = channel.map(FileChannel.MapMode.READ_WRITE, band * bandRows * rowBytes,
+                            rows * rowBytes);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - can't map the pixels file in " + directory, e);
+        }
+    }
+
+    /**
+     * Image Writer constructor accepting image name and View Plane parameters, which streams the image
+     * as PNG to a channel - every band of rows is written as soon as it and the bands above it are complete.
+     * Every pixel should be written once, and {@link #writeToImage()} ends the image - so the image is rendered by
+     * a single {@link Camera#renderImage()}, the progressive rendering and the grid printing of the camera, which
+     * write pixels again, reject a streamed image writer.
+     *
+     * @param imageName the name of the image
+     * @param nX        amount of pixels by Width
+     * @param nY        amount of pixels by height
+     * @param channel   the channel of the image, it isn't closed by the image writer
+     */
+    public ImageWriter(String imageName, int nX, int nY, WritableByteChannel channel) {
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+
+        stream = new PngStream(channel, nX, nY);
+    }
+
     // ***************** Getters/Setters ********************** //
 
+    /**
+     * Checks whether the image is streamed, see {@link #ImageWriter(String, int, int, WritableByteChannel)}
+     *
+     * @return true if the image is streamed, so every pixel is written once
+     */
+    public boolean isStreamed() {
+        return stream != null;
+    }
+
     /**
      * View Plane Y axis resolution
      *
@@ -89,18 +210,136 @@ public class ImageWriter {
     /**
      * Function writeToImage produces unoptimized png file of the image according
      * to
-     * pixel color matrix in the directory of the project
+     * pixel color matrix in the directory of the project, or ends a streamed image
      */
     public void writeToImage() {
+        if (stream != null) {
+            //the bands were written while they were completed
+            stream.finish();
+            return;
+        }
         try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+            PngWriter.write(Path.of(FOLDER_PATH, imageName + ".png"), nX, nY,
+                    image != null ? this::readImageRow : pixels != null ? this::readBufferRow : this::readBandRow);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "I/O error", e);
             throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
         }
     }
 
+    /**
+     * Reads a row of the 8 bit image as r, g and b bytes
+     *
+     * @param y      the row
+     * @param rgb    the bytes of the row
+     * @param offset the offset of the row in the bytes
+     */
+    private void readImageRow(int y, byte[] rgb, int offset) {
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int x = 0, index = y * nX; x < nX; ++x, ++index, offset += 3) {
+            int color = data[index];
+            rgb[offset] = (byte) (color >> 16);
+            rgb[offset + 1] = (byte) (color >> 8);
+            rgb[offset + 2] = (byte) color;
+        }
+    }
+
+    /**
+     * Reads a row of the float buffer as r, g and b bytes, clamped to 0-255
+     *
+     * @param y      the row
+     * @param rgb    the bytes of the row
+     * @param offset the offset of the row in the bytes
+     */
+    private void readBufferRow(int y, byte[] rgb, int offset) {
+        for (int i = 3 * y * nX, end = i + 3 * nX; i < end; ++i, ++offset)
+            rgb[offset] = (byte) component(pixels[i]);
+    }
+
+    /**
+     * Reads a row of the memory mapped file as r, g and b bytes
+     *
+     * @param y      the row
+     * @param rgb    the bytes of the row
+     * @param offset the offset of the row in the bytes
+     */
+    private void readBandRow(int y, byte[] rgb, int offset) {
+        bands[y / bandRows].get(y % bandRows * 3 * nX, rgb, offset, 3 * nX);
+    }
+
+    /**
+     * Writes the image to a Portable Float Map file (.pfm)
+     */
+    public void writeToPfm() {
+        writeHdr("pfm", HdrWriter::writePfm);
+    }
+
+    /**
+     * Writes the image to a Radiance RGBE file (.hdr)
+     */
+    public void writeToHdr() {
+        writeHdr("hdr", HdrWriter::writeHdr);
+    }
+
+    /**
+     * Writes the image to an uncompressed scanline OpenEXR file (.exr)
+     */
+    public void writeToExr() {
+        writeHdr("exr", HdrWriter::writeExr);
+    }
+
+    /**
+     * A writer of a high dynamic range file
+     */
+    @FunctionalInterface
+    private interface HdrFormat {
+        /**
+         * Writes the file
+         *
+         * @param path the file
+         * @param nX   number of pixels in a row
+         * @param nY   number of rows
+         * @param rows the reader of the rows
+         * @throws IOException if the file can't be written
+         */
+        void write(Path path, int nX, int nY, HdrWriter.RowReader rows) throws IOException;
+    }
+
+    /**
+     * Writes the image to a high dynamic range file, the colors are scaled so that 255 is written as 1
+     *
+     * @param extension the file extension
+     * @param format    the writer of the file
+     */
+    private void writeHdr(String extension, HdrFormat format) {
+        if (stream != null) throw new IllegalStateException("A streamed image is written as PNG only");
+        try {
+            format.write(Path.of(FOLDER_PATH, imageName + '.' + extension), nX, nY, this::readHdrRow);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+        }
+    }
+
+    /**
+     * Reads a row of pixels as r, g and b floats scaled for the high dynamic range files
+     *
+     * @param y   the row
+     * @param rgb the floats of the row
+     */
+    private void readHdrRow(int y, float[] rgb) {
+        if (pixels != null) {
+            for (int i = 0, index = 3 * y * nX; i < rgb.length; ++i, ++index)
+                rgb[i] = pixels[index] * HDR_SCALE;
+            return;
+        }
+        byte[] bytes = new byte[3 * nX];
+        if (image != null) readImageRow(y, bytes, 0);
+        else readBandRow(y, bytes, 0);
+        for (int i = 0; i < rgb.length; ++i)
+            rgb[i] = (bytes[i] & 0xFF) * HDR_SCALE;
+    }
+
     /**
      * The function writePixel writes a color of a specific pixel into pixel color
      * matrix
@@ -110,7 +349,49 @@ public class ImageWriter {
      * @param color  final color of the pixel
      */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        Double3 rgb = color.getRgb();
+        if (image != null) {
+            image.setRGB(xIndex, yIndex, rgb(rgb.getD1(), rgb.getD2(), rgb.getD3()));
+            return;
+        }
+        if (stream != null) {
+            stream.writePixel(xIndex, yIndex, component(rgb.getD1()), component(rgb.getD2()), component(rgb.getD3()));
+            return;
+        }
+        if (bands != null) {
+            int offset = yIndex % bandRows * 3 * nX + 3 * xIndex;
+            bands[yIndex / bandRows].put(offset, (byte) component(rgb.getD1()))
+                    .put(offset + 1, (byte) component(rgb.getD2()))
+                    .put(offset + 2, (byte) component(rgb.getD3()));
+            return;
+        }
+        int index = 3 * (yIndex * nX + xIndex);
+        pixels[index] = (float) rgb.getD1();
+        pixels[index + 1] = (float) rgb.getD2();
+        pixels[index + 2] = (float) rgb.getD3();
+    }
+
+    /**
+     * Packs a color into an 8 bit RGB integer, clamping its components to 0-255 like {@link Color#getColor()}
+     *
+     * @param r red
+     * @param g green
+     * @param b blue
+     * @return the packed color
+     */
+    private static int rgb(double r, double g, double b) {
+        return component(r) << 16 | component(g) << 8 | component(b);
+    }
+
+    /**
+     * Clamps a color component to 0-255
+     *
+     * @param value the component
+     * @return the clamped component
+     */
+    private static int component(double value) {
+        int component = (int) value;
+        return component > 255 ? 255 : Math.max(component, 0);
     }
 
 }
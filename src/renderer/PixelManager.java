@@ -1,133 +1,160 @@
 package renderer;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * PixelManager is a helper class. It is used for multi-threading in the
  * renderer and
  * for follow up its progress.<br/>
- * A Camera uses one pixel manager object and several Pixel objects - one in
- * each thread.
+ * The pixels are numbered row by row and handed out in batches by an atomic
+ * cursor, and the processed pixels are counted without locking. The progress
+ * percentage is printed by a single reporter thread.
  *
  * @author Dan Zilberstein
  */
 class PixelManager {
-    /**
-     * Immutable class for object containing allocated pixel (with its row and column numbers)
-     *
-     * @param col columns numbers
-     * @param row rows number
-     */
-    record Pixel(int col, int row) {
-    }
-
-    /**
-     * Maximum rows of pixels
-     */
-    private int maxRows = 0;
     /**
      * Maximum columns of pixels
      */
-    private int maxCols = 0;
+    private final int maxCols;
     /**
      * Total amount of pixels in the generated image
      */
-    private long totalPixels = 0l;
-
+    private final long totalPixels;
     /**
-     * Currently processed row of pixels
+     * Amount of pixels handed out by each allocation
      */
-    private volatile int cRow = 0;
+    private final int batchSize;
+
     /**
-     * Currently processed column of pixels
+     * Number of the next pixel to hand out
      */
-    private volatile int cCol = -1;
+    private final AtomicLong next = new AtomicLong();
     /**
      * Amount of pixels that have been processed
      */
-    private volatile long pixels = 0l;
-    /**
-     * Last printed progress update percentage
-     */
-    private volatile int lastPrinted = 0;
+    private final LongAdder pixels = new LongAdder();
 
     /**
-     * Flag of debug printing of progress percentage
+     * Progress percentage printing interval in milliseconds
      */
-    private boolean print = false;
-    /**
-     * Progress percentage printing interval
-     */
-    private long printInterval = 100l;
+    private final long printInterval;
     /**
      * Printing format
      */
     private static final String PRINT_FORMAT = "%5.1f%%\r";
     /**
-     * Mutual exclusion object for synchronizing next pixel allocation between
-     * threads
-     */
-    private Object mutexNext = new Object();
-    /**
-     * Mutual exclusion object for printing progress percentage in console window
-     * by different threads
+     * The thread printing the progress percentage, null if printing is not required
      */
-    private Object mutexPixels = new Object();
+    private Thread reporter;
 
     /**
      * Initialize pixel manager data for multi-threading
      *
-     * @param maxRows  the amount of pixel rows
-     * @param maxCols  the amount of pixel columns
-     * @param interval print time interval in seconds, 0 if printing is not
-     *                 required
+     * @param maxRows   the amount of pixel rows
+     * @param maxCols   the amount of pixel columns
+     * @param batchSize the amount of pixels handed out by each allocation
+     * @param interval  print time interval in seconds, 0 if printing is not
+     *                  required
      */
-    PixelManager(int maxRows, int maxCols, double interval) {
-        this.maxRows = maxRows;
+    PixelManager(int maxRows, int maxCols, int batchSize, double interval) {
         this.maxCols = maxCols;
+        this.batchSize = batchSize;
         totalPixels = (long) maxRows * maxCols;
-        printInterval = (int) (interval * 10);
-        if (print = printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
+        printInterval = (long) (interval * 1000);
+        if (printInterval != 0) {
+            reporter = new Thread(this::report, "PixelManager progress");
+            reporter.setDaemon(true);
+            reporter.start();
+        }
     }
 
     /**
-     * Function for thread-safe manipulating of main follow up Pixel object - this
-     * function is critical section for all the threads, and the pixel manager data
-     * is the shared data of this critical section.<br/>
-     * The function provides next available pixel number each call.
+     * Allocates the next batch of pixels. The pixels of a batch are continuous in row by row order,
+     * their numbers are from the returned number up to (not including) {@link #batchEnd(long)}
      *
-     * @return true if next pixel is allocated, false if there are no more pixels
+     * @return the number of the first pixel in the batch, -1 if there are no more pixels
      */
-    Pixel nextPixel() {
-        synchronized (mutexNext) {
-            if (cRow == maxRows) return null;
+    long nextBatch() {
+        long first = next.getAndAdd(batchSize);
+        return first < totalPixels ? first : -1;
+    }
 
-            ++cCol;
-            if (cCol < maxCols)
-                return new Pixel(cRow, cCol);
+    /**
+     * Finds the end of a batch of pixels
+     *
+     * @param first the number of the first pixel in the batch
+     * @return the number after the last pixel in the batch
+     */
+    long batchEnd(long first) {
+        return Math.min(first + batchSize, totalPixels);
+    }
 
-            cCol = 0;
-            ++cRow;
-            if (cRow < maxRows)
-                return new Pixel(cRow, cCol);
-        }
-        return null;
+    /**
+     * Column of a pixel by its number
+     *
+     * @param pixel the pixel number
+     * @return the column
+     */
+    int col(long pixel) {
+        return (int) (pixel % maxCols);
     }
 
     /**
-     * Finish pixel processing by updating and printing of progress percentage
+     * Row of a pixel by its number
+     *
+     * @param pixel the pixel number
+     * @return the row
+     */
+    int row(long pixel) {
+        return (int) (pixel / maxCols);
+    }
+
+    /**
+     * Finish pixel processing by updating the progress
      */
     void pixelDone() {
-        boolean flag = false;
-        int percentage = 0;
-        synchronized (mutexPixels) {
-            ++pixels;
-            if (print) {
-                percentage = (int) (1000l * pixels / totalPixels);
-                if (percentage - lastPrinted >= printInterval) {
-                    lastPrinted = percentage;
-                    flag = true;
-                }
+        pixels.increment();
+    }
+
+    /**
+     * Finish processing of a tile of pixels by updating the progress
+     *
+     * @param count the amount of pixels in the tile
+     */
+    void pixelsDone(int count) {
+        pixels.add(count);
+    }
+
+    /**
+     * Stop reporting the progress
+     */
+    void finish() {
+        if (reporter == null) return;
+        reporter.interrupt();
+        try {
+            reporter.join();
+        } catch (InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+        }
+        reporter = null;
+    }
+
+    /**
+     * The reporter thread's code - prints the progress percentage every interval until all the pixels are done
+     * or it is interrupted
+     */
+    private void report() {
+        System.out.printf(PRINT_FORMAT, 0d);
+        while (pixels.sum() < totalPixels) {
+            try {
+                Thread.sleep(printInterval);
+            } catch (InterruptedException ignore) {
+                break;
             }
-            if (flag) System.out.printf(PRINT_FORMAT, percentage / 10d);
+            System.out.printf(PRINT_FORMAT, 100d * pixels.sum() / totalPixels);
         }
+        System.out.printf(PRINT_FORMAT, 100d * pixels.sum() / totalPixels);
     }
-}
\ No newline at end of file
+}
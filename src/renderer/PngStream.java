@@ -0,0 +1,221 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+
+/**
+ * PNG image streamed to a channel by bands of rows - a band is kept in memory until all its pixels
+ * are written, then it is compressed and written as soon as all the bands above it were written.
+ * The bands share a single deflate stream, flushed to a byte boundary after each band.
+ * Every pixel must be written once.
+ */
+class PngStream {
+    /**
+     * Raw bytes in a band, about
+     */
+    private static final int BAND_BYTES = 1 << 16;
+
+    /**
+     * The channel of the image
+     */
+    private final WritableByteChannel channel;
+    /**
+     * Number of pixels in a row
+     */
+    private final int nX;
+    /**
+     * Number of rows
+     */
+    private final int nY;
+    /**
+     * Number of rows in a band
+     */
+    private final int bandRows;
+    /**
+     * The pixels of the bands (r, g and b bytes row by row), null before the first pixel of a band is written
+     * and after the band is streamed
+     */
+    private final AtomicReferenceArray<byte[]> bands;
+    /**
+     * Pixels of every band which weren't written yet
+     */
+    private final AtomicIntegerArray remaining;
+
+    /**
+     * Lock of the streaming, the thread holding it streams all the bands ready in order
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * The next band to stream
+     */
+    private volatile int next = 0;
+    /**
+     * Whether the image header was written
+     */
+    private boolean started = false;
+    /**
+     * Whether the end of the image was written
+     */
+    private boolean ended = false;
+    /**
+     * The last row of the last streamed band, the filters of the next band refer to it
+     */
+    private byte[] previousRow;
+    /**
+     * The compressor of the image data
+     */
+    private final Deflater deflater = new Deflater(PngWriter.LEVEL);
+    /**
+     * Buffer of the compressed data
+     */
+    private byte[] compressed = new byte[BAND_BYTES];
+
+    /**
+     * Creates a stream, nothing is written before the first band is complete
+     *
+     * @param channel the channel of the image, it isn't closed by the stream
+     * @param nX      number of pixels in a row
+     * @param nY      number of rows
+     */
+    PngStream(WritableByteChannel channel, int nX, int nY) {
+        this.channel = channel;
+        this.nX = nX;
+        this.nY = nY;
+        bandRows = Math.max(1, BAND_BYTES / (3 * nX));
+        int count = (nY + bandRows - 1) / bandRows;
+        bands = new AtomicReferenceArray<>(count);
+        remaining = new AtomicIntegerArray(count);
+        for (int band = 0; band < count; ++band)
+            remaining.set(band, rows(band) * nX);
+        previousRow = new byte[3 * nX];
+    }
+
+    /**
+     * Calculates the number of rows in a band
+     *
+     * @param band the band
+     * @return the number of rows
+     */
+    private int rows(int band) {
+        return Math.min(bandRows, nY - band * bandRows);
+    }
+
+    /**
+     * Writes a pixel, and streams the bands its band completes
+     *
+     * @param x the column
+     * @param y the row
+     * @param r red, 0-255
+     * @param g green, 0-255
+     * @param b blue, 0-255
+     * @throws IllegalStateException if the pixel's band was already streamed or the streaming fails
+     */
+    void writePixel(int x, int y, int r, int g, int b) {
+        int band = y / bandRows;
+        byte[] pixels = bands.get(band);
+        if (pixels == null) {
+            if (remaining.get(band) <= 0) throw new IllegalStateException("Row " + y + " was already streamed");
+            bands.compareAndSet(band, null, new byte[3 * nX * rows(band)]);
+            pixels = bands.get(band);
+        }
+        int offset = 3 * ((y - band * bandRows) * nX + x);
+        pixels[offset] = (byte) r;
+        pixels[offset + 1] = (byte) g;
+        pixels[offset + 2] = (byte) b;
+        if (remaining.decrementAndGet(band) == 0) stream(false);
+    }
+
+    /**
+     * Streams the rest of the image - the bands which weren't completed as they are (black where
+     * their pixels weren't written) and the end of the image. Nothing is written by a second call.
+     *
+     * @throws IllegalStateException if the streaming fails
+     */
+    void finish() {
+        stream(true);
+    }
+
+    /**
+     * Streams the bands ready in order. Only a single thread streams, a thread which completes a band
+     * while another one is streaming leaves it to that thread.
+     *
+     * @param all whether to stream all the bands and end the image
+     * @throws IllegalStateException if the streaming fails
+     */
+    private void stream(boolean all) {
+        //the check after the unlocking catches a band completed while the lock was about to be released
+        while (all || next < remaining.length() && remaining.get(next) == 0) {
+            if (all) lock.lock();
+            else if (!lock.tryLock()) return;
+            try {
+                if (ended) return;
+                if (!started) {
+                    PngWriter.writeHeader(channel, nX, nY);
+                    started = true;
+                }
+                while (next < remaining.length() && (all || remaining.get(next) == 0))
+                    streamBand(next++);
+                if (all) {
+                    deflater.finish();
+                    deflate(Deflater.NO_FLUSH);
+                    deflater.end();
+                    PngWriter.chunk(channel, "IEND", new byte[0], 0, 0);
+                    ended = true;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("I/O error - the image stream failed", e);
+            } finally {
+                lock.unlock();
+            }
+            if (all) return;
+        }
+    }
+
+    /**
+     * Filters, compresses and writes a band
+     *
+     * @param band the band
+     * @throws IOException if the writing fails
+     */
+    private void streamBand(int band) throws IOException {
+        int rows = rows(band);
+        int rowBytes = 3 * nX;
+        byte[] pixels = bands.getAndSet(band, null);
+        //an unfinished band stays unfinished
+        remaining.set(band, -1);
+        if (pixels == null) pixels = new byte[rowBytes * rows];
+
+        byte[] raw = new byte[(1 + rowBytes) * rows];
+        byte[] row = new byte[rowBytes];
+        for (int i = 0; i < rows; ++i) {
+            System.arraycopy(pixels, i * rowBytes, row, 0, rowBytes);
+            PngWriter.filter(row, previousRow, raw, i * (1 + rowBytes));
+            byte[] swap = previousRow;
+            previousRow = row;
+            row = swap;
+        }
+        deflater.setInput(raw);
+        deflate(Deflater.SYNC_FLUSH);
+    }
+
+    /**
+     * Compresses the input of the deflater and writes it as an image data chunk
+     *
+     * @param flush the flush mode, NO_FLUSH after finishing the deflater
+     * @throws IOException if the writing fails
+     */
+    private void deflate(int flush) throws IOException {
+        int length = 0;
+        while (true) {
+            length += deflater.deflate(compressed, length, compressed.length - length, flush);
+            if (deflater.finished() || flush != Deflater.NO_FLUSH && length < compressed.length) break;
+            if (length == compressed.length) compressed = Arrays.copyOf(compressed, 2 * compressed.length);
+        }
+        if (length > 0) PngWriter.chunk(channel, "IDAT", compressed, 0, length);
+    }
+}
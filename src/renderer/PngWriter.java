@@ -0,0 +1,321 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Writer of 8 bit RGB PNG files which filters and compresses horizontal strips of the image in parallel.
+ * Every strip is an independent deflate block sequence ending on a byte boundary (a sync flush),
+ * so the strips concatenate into a single zlib stream, and each strip is written as an IDAT chunk.
+ * The checksum of the whole stream is combined from the checksums of the strips.
+ */
+final class PngWriter {
+    /**
+     * Reader of the image rows
+     */
+    @FunctionalInterface
+    interface RowReader {
+        /**
+         * Reads a row of pixels as r, g and b bytes
+         *
+         * @param y      the row
+         * @param rgb    the bytes of the row
+         * @param offset the offset of the row in the bytes
+         */
+        void read(int y, byte[] rgb, int offset);
+    }
+
+    /**
+     * PNG file signature
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /**
+     * zlib header - deflate with a 32K window, default compression
+     */
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+    /**
+     * Compression level, the level of the ImageIO PNG writer
+     */
+    static final int LEVEL = 4;
+    /**
+     * Raw (filtered) bytes in a strip, about
+     */
+    private static final int STRIP_BYTES = 1 << 20;
+    /**
+     * Adler-32 modulus
+     */
+    private static final int ADLER_BASE = 65521;
+
+    /**
+     * Compressed strip
+     *
+     * @param data   the compressed bytes
+     * @param length the amount of compressed bytes
+     * @param adler  Adler-32 checksum of the raw bytes
+     * @param raw    the amount of raw bytes
+     */
+    private record Strip(byte[] data, int length, int adler, int raw) {
+    }
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private PngWriter() {
+    }
+
+    /**
+     * Writes a PNG file
+     *
+     * @param path the file
+     * @param nX   number of pixels in a row
+     * @param nY   number of rows
+     * @param rows the reader of the rows
+     * @throws IOException if the file can't be written
+     */
+    static void write(Path path, int nX, int nY, RowReader rows) throws IOException {
+        int stripRows = Math.max(1, STRIP_BYTES / (1 + 3 * nX));
+        int strips = (nY + stripRows - 1) / stripRows;
+        //the strips compressed ahead of the writing are limited, so that the memory doesn't grow with the image
+        int ahead = 2 * ForkJoinPool.getCommonPoolParallelism();
+        Deque<Future<Strip>> tasks = new ArrayDeque<>();
+        int submitted = 0;
+        for (; submitted < Math.min(ahead, strips); ++submitted)
+            tasks.add(submit(nX, nY, stripRows, submitted, rows));
+
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeHeader(channel, nX, nY);
+
+            //the strips are written in order, each as soon as it is compressed
+            int adler = 1;
+            for (int s = 0; s < strips; ++s) {
+                Strip strip = tasks.removeFirst().get();
+                if (submitted < strips)
+                    tasks.add(submit(nX, nY, stripRows, submitted++, rows));
+                adler = combineAdler(adler, strip.adler(), strip.raw());
+                byte[] data = strip.data();
+                int length = strip.length();
+                if (s == 0) {
+                    data = new byte[length + ZLIB_HEADER.length];
+                    System.arraycopy(ZLIB_HEADER, 0, data, 0, ZLIB_HEADER.length);
+                    System.arraycopy(strip.data(), 0, data, ZLIB_HEADER.length, length);
+                    length = data.length;
+                }
+                if (s == strips - 1) {
+                    data = Arrays.copyOf(data, length + 4);
+                    ByteBuffer.wrap(data, length, 4).putInt(adler);
+                    length += 4;
+                }
+                chunk(channel, "IDAT", data, 0, length);
+            }
+            chunk(channel, "IEND", new byte[0], 0, 0);
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("PNG writing was interrupted", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw new IOException("PNG compression failed", e.getCause());
+        }
+    }
+
+    /**
+     * Writes the PNG signature and the image header chunk
+     *
+     * @param channel the channel
+     * @param nX      number of pixels in a row
+     * @param nY      number of rows
+     * @throws IOException if the writing fails
+     */
+    static void writeHeader(WritableByteChannel channel, int nX, int nY) throws IOException {
+        write(channel, ByteBuffer.wrap(SIGNATURE));
+        ByteBuffer header = ByteBuffer.allocate(13);
+        //8 bits per sample, RGB, deflate, adaptive filtering, no interlace
+        header.putInt(nX).putInt(nY).put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+        chunk(channel, "IHDR", header.array(), 0, 13);
+    }
+
+    /**
+     * Submits the compression of a strip to the common pool
+     *
+     * @param nX        number of pixels in a row
+     * @param nY        number of rows
+     * @param stripRows number of rows in a strip
+     * @param strip     the strip
+     * @param rows      the reader of the rows
+     * @return the compression task
+     */
+    private static Future<Strip> submit(int nX, int nY, int stripRows, int strip, RowReader rows) {
+        int from = strip * stripRows;
+        int to = Math.min(from + stripRows, nY);
+        return ForkJoinPool.commonPool().submit(() -> compress(nX, from, to, to == nY, rows));
+    }
+
+    /**
+     * Filters and compresses a strip of rows
+     *
+     * @param nX   number of pixels in a row
+     * @param from the first row of the strip
+     * @param to   the row after the strip
+     * @param last whether the strip ends the image
+     * @param rows the reader of the rows
+     * @return the compressed strip
+     */
+    private static Strip compress(int nX, int from, int to, boolean last, RowReader rows) {
+        int rowBytes = 3 * nX;
+        byte[] raw = new byte[(1 + rowBytes) * (to - from)];
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        //the filters of the first row refer to the row above it, in the previous strip
+        if (from > 0) rows.read(from - 1, previous, 0);
+        for (int y = from, offset = 0; y < to; ++y, offset += 1 + rowBytes) {
+            rows.read(y, current, 0);
+            filter(current, previous, raw, offset);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Adler32 adler = new Adler32();
+        adler.update(raw);
+        Deflater deflater = new Deflater(LEVEL, true);
+        deflater.setInput(raw);
+        if (last) deflater.finish();
+        byte[] data = new byte[raw.length / 2 + 64];
+        int length = 0;
+        while (true) {
+            length += deflater.deflate(data, length, data.length - length,
+                    last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+            //the output is complete when the deflater didn't fill the space it was given
+            if (last ? deflater.finished() : length < data.length) break;
+            if (length == data.length) data = Arrays.copyOf(data, data.length * 2);
+        }
+        deflater.end();
+        return new Strip(data, length, (int) adler.getValue(), raw.length);
+    }
+
+    /**
+     * Filters a row by the filter which gives the smallest sum of absolute values (the PNG heuristic)
+     *
+     * @param row      the row
+     * @param previous the row above it, zeros for the first row
+     * @param out      the filtered rows
+     * @param offset   the offset of the filtered row (its filter type byte)
+     */
+    static void filter(byte[] row, byte[] previous, byte[] out, int offset) {
+        //the sums of all the filters in a single pass over the row
+        long none = 0, sub = 0, up = 0, average = 0, paeth = 0;
+        for (int i = 0; i < row.length; ++i) {
+            int x = row[i] & 0xFF;
+            int a = i >= 3 ? row[i - 3] & 0xFF : 0;
+            int b = previous[i] & 0xFF;
+            int c = i >= 3 ? previous[i - 3] & 0xFF : 0;
+            none += Math.abs((byte) x);
+            sub += Math.abs((byte) (x - a));
+            up += Math.abs((byte) (x - b));
+            average += Math.abs((byte) (x - ((a + b) >> 1)));
+            paeth += Math.abs((byte) (x - paeth(a, b, c)));
+        }
+        long best = Math.min(Math.min(none, sub), Math.min(Math.min(up, average), paeth));
+        int type = best == none ? 0 : best == sub ? 1 : best == up ? 2 : best == average ? 3 : 4;
+
+        out[offset++] = (byte) type;
+        for (int i = 0; i < row.length; ++i) {
+            int x = row[i] & 0xFF;
+            int a = i >= 3 ? row[i - 3] & 0xFF : 0;
+            int b = previous[i] & 0xFF;
+            out[offset + i] = (byte) switch (type) {
+                case 0 -> x;
+                case 1 -> x - a;
+                case 2 -> x - b;
+                case 3 -> x - ((a + b) >> 1);
+                default -> x - paeth(a, b, i >= 3 ? previous[i - 3] & 0xFF : 0);
+            };
+        }
+    }
+
+    /**
+     * The Paeth predictor - the neighbour closest to left + above - upper left
+     *
+     * @param a the left byte
+     * @param b the byte above
+     * @param c the upper left byte
+     * @return the prediction
+     */
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        return pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two consecutive byte sequences (as zlib's adler32_combine)
+     *
+     * @param adler1  checksum of the first sequence
+     * @param adler2  checksum of the second sequence
+     * @param length2 length of the second sequence
+     * @return checksum of both sequences
+     */
+    static int combineAdler(int adler1, int adler2, int length2) {
+        long rem = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = rem * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= 2L * ADLER_BASE) sum2 -= 2L * ADLER_BASE;
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return (int) (sum1 | sum2 << 16);
+    }
+
+    /**
+     * Writes a PNG chunk - its length, type, data and CRC
+     *
+     * @param channel the channel
+     * @param type    the chunk type
+     * @param data    the data
+     * @param offset  offset of the data
+     * @param length  length of the data
+     * @throws IOException if the writing fails
+     */
+    static void chunk(WritableByteChannel channel, String type, byte[] data, int offset, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        ByteBuffer head = ByteBuffer.allocate(8).putInt(length).put(typeBytes).flip();
+        write(channel, head);
+        write(channel, ByteBuffer.wrap(data, offset, length));
+        write(channel, ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip());
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer
+     *
+     * @param channel the channel
+     * @param buffer  the buffer
+     * @throws IOException if the writing fails
+     */
+    private static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
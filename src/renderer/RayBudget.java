@@ -0,0 +1,67 @@
+package renderer;
+
+/**
+ * Budget of the shading rays of a pixel - the rays traced through the pixel and their reflection and refraction
+ * rays, not the shadow rays. The tracing spends from it, and a part of it may be reserved for the rays which
+ * are still to be traced through the pixel, so that a single ray doesn't spend what they need.
+ */
+public class RayBudget {
+    /**
+     * The rays left
+     */
+    private int remaining;
+    /**
+     * The rays of the remaining ones kept for the coming rays through the pixel
+     */
+    private int reserved = 0;
+
+    /**
+     * Creates a budget
+     *
+     * @param rays the number of rays, positive
+     * @throws IllegalArgumentException if the number of rays isn't positive
+     */
+    public RayBudget(int rays) {
+        if (rays < 1)
+            throw new IllegalArgumentException("Illegal argument in RayBudget");
+        this.remaining = rays;
+    }
+
+    /**
+     * Get the rays left
+     *
+     * @return the rays left, including the reserved ones
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Get the rays which the current ray may spend
+     *
+     * @return the rays left which aren't reserved
+     */
+    public int getAvailable() {
+        return remaining - reserved;
+    }
+
+    /**
+     * Reserves rays for the coming rays through the pixel, instead of the former reservation
+     *
+     * @param rays the number of rays to reserve
+     * @return the budget itself
+     */
+    public RayBudget reserve(int rays) {
+        this.reserved = rays;
+        return this;
+    }
+
+    /**
+     * Spends rays
+     *
+     * @param rays the number of rays traced
+     */
+    public void spend(int rays) {
+        remaining -= rays;
+    }
+}
@@ -29,4 +29,33 @@ public abstract class RayTracerBase {
      * @return color by given ray
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * traces the given ray, spending its rays from a budget. This tracer traces no rays but the given one,
+     * so it spends a single ray.
+     *
+     * @param ray    to trace
+     * @param budget the budget, at least one ray of it is available
+     * @return color by given ray
+     */
+    public Color traceRay(Ray ray, RayBudget budget) {
+        budget.spend(1);
+        return traceRay(ray);
+    }
+
+    /**
+     * traces the given ray through a pixel, spending its rays from a budget, and writes the pixel's auxiliary
+     * buffers by its hit. This tracer doesn't provide the hit, it writes the pixel as having none.
+     *
+     * @param ray    to trace
+     * @param budget the budget, at least one ray of it is available
+     * @param aov    the auxiliary buffers
+     * @param x      the column of the pixel
+     * @param y      the row of the pixel
+     * @return color by given ray
+     */
+    public Color traceRay(Ray ray, RayBudget budget, AovBuffers aov, int x, int y) {
+        aov.writeMiss(x, y);
+        return traceRay(ray, budget);
+    }
 }
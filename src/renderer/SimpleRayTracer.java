@@ -3,9 +3,13 @@ package renderer;
 import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
+import geometries.Geometry;
 import geometries.Intersectable.GeoPoint;
 
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.lang.Math.*;
 import static primitives.Util.*;
@@ -16,17 +20,106 @@ import static primitives.Util.*;
 public class SimpleRayTracer extends RayTracerBase {
 
     /**
-     * For recursion stop term
+     * Stop term of the paths - the most hits along a path, each reflection or refraction is one level
      */
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     /**
-     * For recursion stop term
+     * Stop term of the paths - the least attenuation worth tracing
      */
     private static final Double3 MIN_CALC_COLOR_K = new Double3(0.001);
     /**
      * The initial value of k
      */
     private static final Double3 INITIAL_K = Double3.ONE;
+    /**
+     * The least number of rays of an adaptive beam, and the rays traced before the variance is checked
+     */
+    private static final int MIN_ADAPTIVE_RAYS = 16;
+
+    /**
+     * The error of a beam's contribution to the pixel (in 8 bit color units) under which the adaptive
+     * sampling stops tracing its rays, 0 when the adaptive sampling is off
+     */
+    private double adaptiveThreshold = 0;
+
+    /**
+     * The most shading rays (the traced ray and its reflection and refraction rays, without the shadow rays)
+     * traced for a single traced ray
+     */
+    private int rayBudget = Integer.MAX_VALUE;
+
+    /**
+     * The levels traced in full before the Russian roulette decides whether to trace on, -1 when it is off
+     */
+    private int rouletteLevels = -1;
+
+    /**
+     * The ids of the scene's geometries for the auxiliary buffers, numbered on the first demand
+     */
+    private volatile Map<Geometry, Integer> objectIds;
+
+    /**
+     * A hit whose local effects are already summed and whose global effects are still to be traced
+     *
+     * @param gp     the hit point and geometry
+     * @param ray    the ray that hit it
+     * @param level  the level of the hit, it has global effects if it is higher than 1
+     * @param k      the attenuation along the path to the hit, for the stop terms,
+     *               boosted by the survival probabilities of the Russian roulette
+     * @param weight the weight of the hit's colors in the traced ray's color
+     */
+    private record Hit(GeoPoint gp, Ray ray, int level, Double3 k, Double3 weight) {
+    }
+
+    /**
+     * The state of tracing a single ray - the sum of the colors so far, the rays left in the budget
+     * and the queue of the hits to trace from
+     */
+    private static final class Tracing {
+        /**
+         * The red component of the color so far
+         */
+        double r;
+        /**
+         * The green component of the color so far
+         */
+        double g;
+        /**
+         * The blue component of the color so far
+         */
+        double b;
+        /**
+         * The rays left in the budget
+         */
+        int budget;
+        /**
+         * The hits to trace from, in the order they were found - the heavier contributions of the
+         * shallower levels come first and get the budget before the deeper ones
+         */
+        final ArrayDeque<Hit> queue = new ArrayDeque<>();
+
+        /**
+         * Creates the state of tracing a ray
+         *
+         * @param budget the rays in the budget
+         */
+        Tracing(int budget) {
+            this.budget = budget;
+        }
+
+        /**
+         * Adds a weighted color to the sum
+         *
+         * @param color  the color
+         * @param weight the weight
+         */
+        void add(Color color, Double3 weight) {
+            Double3 rgb = color.getRgb();
+            r += rgb.getD1() * weight.getD1();
+            g += rgb.getD2() * weight.getD2();
+            b += rgb.getD3() * weight.getD3();
+        }
+    }
 
 
     /**
@@ -38,37 +131,153 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Turns on the adaptive sampling of glossy and blurry beams. The number of rays of a beam is scaled by the
+     * attenuation of its contribution (kkx), and the tracing stops once the standard error of the average color,
+     * attenuated the same way, is lower than the threshold. The early stop relies on the samplers spreading
+     * any prefix of the beam over the whole circle.
+     *
+     * @param threshold the error to stop at in 8 bit color units, e.g. 0.5 for half a step, 0 turns it off
+     * @return the ray tracer itself
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public SimpleRayTracer setAdaptiveSampling(double threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("Illegal argument in setAdaptiveSampling");
+        this.adaptiveThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the most shading rays traced for a single traced ray, including the traced ray and its reflection
+     * and refraction rays and not including the shadow rays. The deeper levels, which contribute less, are the
+     * ones cut when it runs out. The budget of a whole pixel is set on the camera
+     * ({@link Camera.Builder#setRayBudget(int)}), a ray traced from a pixel is limited by both.
+     *
+     * @param rayBudget the number of rays
+     * @return the ray tracer itself
+     * @throws IllegalArgumentException if the budget isn't positive
+     */
+    public SimpleRayTracer setRayBudget(int rayBudget) {
+        if (rayBudget < 1)
+            throw new IllegalArgumentException("Illegal argument in setRayBudget");
+        this.rayBudget = rayBudget;
+        return this;
+    }
+
+    /**
+     * Turns on the Russian roulette termination of the paths. After the given number of levels, a beam is traced
+     * only with a probability of the largest component of its attenuation (kkx) and a traced beam is boosted by
+     * the reverse of that probability, so the expected color stays the same while long chains of weak reflections
+     * and refractions are cut early.
+     *
+     * @param levels the levels traced in full, before the roulette starts, -1 turns it off
+     * @return the ray tracer itself
+     * @throws IllegalArgumentException if levels is lower than -1
+     */
+    public SimpleRayTracer setRussianRoulette(int levels) {
+        if (levels < -1)
+            throw new IllegalArgumentException("Illegal argument in setRussianRoulette");
+        this.rouletteLevels = levels;
+        return this;
+    }
+
     @Override
     public Color traceRay(Ray ray) {
         var intersection = findClosestIntersection(ray);
-        return intersection == null ? scene.background : calcColor(intersection, ray);
+        return intersection == null ? scene.background : calcColor(intersection, ray, new Tracing(rayBudget - 1));
+    }
+
+    @Override
+    public Color traceRay(Ray ray, RayBudget budget) {
+        var intersection = findClosestIntersection(ray);
+        return intersection == null ? traceMiss(budget) : traceHit(intersection, ray, budget);
+    }
+
+    @Override
+    public Color traceRay(Ray ray, RayBudget budget, AovBuffers aov, int x, int y) {
+        var intersection = findClosestIntersection(ray);
+        if (intersection == null) {
+            aov.writeMiss(x, y);
+            return traceMiss(budget);
+        }
+        Geometry geometry = intersection.geometry;
+        aov.write(x, y, intersection.point.distance(ray.getHead()), geometry.getNormal(intersection.point),
+                geometry.getMaterial().kD, objectId(geometry.getOwner()));
+        return traceHit(intersection, ray, budget);
     }
 
     /**
-     * Calculate the color of the intersection between the ray at the given point on a geometry
+     * Spends the single ray of a ray which hit nothing
      *
-     * @param intersection a given point and geometry
-     * @param ray          a given ray
-     * @return color at point
+     * @param budget the budget
+     * @return the background
      */
-    private Color calcColor(GeoPoint intersection, Ray ray) {
-//        return scene.ambientLight.getIntensity().add(calcLocalEffects(intersection, ray));
-        return calcColor(intersection, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K)
-                .add(scene.ambientLight.getIntensity());
+    private Color traceMiss(RayBudget budget) {
+        budget.spend(1);
+        return scene.background;
     }
 
     /**
-     * Calculate the color at a point
+     * Calculates the color of a hit within both the tracer's and the given budget, and spends the rays traced
      *
-     * @param intersection the point
-     * @param ray          the ray that hit the point
-     * @param level        the level of the recursion
-     * @param k            the k value of the point
-     * @return the color at the point
+     * @param intersection the hit
+     * @param ray          the ray that hit
+     * @param budget       the budget
+     * @return color at the hit
+     */
+    private Color traceHit(GeoPoint intersection, Ray ray, RayBudget budget) {
+        int limit = min(rayBudget, budget.getAvailable());
+        Tracing tracing = new Tracing(limit - 1);
+        Color color = calcColor(intersection, ray, tracing);
+        budget.spend(limit - tracing.budget);
+        return color;
+    }
+
+    /**
+     * Provides the id of a geometry - its place among the geometries of the scene, counting from 1
+     *
+     * @param geometry the geometry
+     * @return the id, 0 for a geometry which isn't in the scene
+     */
+    private int objectId(Geometry geometry) {
+        Map<Geometry, Integer> ids = objectIds;
+        if (ids == null) {
+            synchronized (this) {
+                ids = objectIds;
+                if (ids == null) {
+                    ids = new IdentityHashMap<>();
+                    List<Geometry> geometries = scene.geometries.flatten();
+                    for (int i = 0; i < geometries.size(); ++i)
+                        ids.putIfAbsent(geometries.get(i), i + 1);
+                    objectIds = ids;
+                }
+            }
+        }
+        return ids.getOrDefault(geometry, 0);
+    }
+
+    /**
+     * Calculate the color of the intersection between the ray at the given point on a geometry.
+     * The color is the sum of the local effects of all the hits along the paths from the point,
+     * each weighted by the attenuation and the beam sizes along its path. The paths are traced
+     * iteratively, level by level, from a queue of the hits.
+     *
+     * @param intersection a given point and geometry
+     * @param ray          a given ray
+     * @param tracing      the state of the tracing, with the budget left after the given ray
+     * @return color at point
      */
-    private Color calcColor(GeoPoint intersection, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(intersection, ray, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(intersection, ray, level, k));
+    private Color calcColor(GeoPoint intersection, Ray ray, Tracing tracing) {
+        tracing.add(calcLocalEffects(intersection, ray, INITIAL_K), Double3.ONE);
+        if (MAX_CALC_COLOR_LEVEL > 1)
+            tracing.queue.add(new Hit(intersection, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K, Double3.ONE));
+
+        Hit hit;
+        while ((hit = tracing.queue.poll()) != null)
+            calcGlobalEffects(tracing, hit);
+
+        return new Color(tracing.r, tracing.g, tracing.b).add(scene.ambientLight.getIntensity());
     }
 
     /**
@@ -103,45 +312,111 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the closest intersection
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        return ray.findClosestGeoPoint(scene.geometries.findGeoIntersections(ray));
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 
     /**
-     * Calculate the global effects at a point
+     * Traces the reflection and the refraction beams of a hit
      *
-     * @param gp    the point
-     * @param ray   the ray
-     * @param level the level of the recursion
-     * @param k     the k value of the point
-     * @return the color at the point
+     * @param tracing the state of the tracing
+     * @param hit     the hit
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Material material = gp.geometry.getMaterial();
-        Vector v = ray.getDirection();
-        Vector n = gp.geometry.getNormal(gp.point);
-
-        return calcGlobalEffect(material, n, constructReflectedRay(gp, v, n), level, k, material.kR)
-                .add(calcGlobalEffect(material, n, constructRefractedRay(gp, v, n), level, k, material.kT));
+    private void calcGlobalEffects(Tracing tracing, Hit hit) {
+        Material material = hit.gp.geometry.getMaterial();
+        Double3 kkr = hit.k.product(material.kR);
+        Double3 kkt = hit.k.product(material.kT);
+        boolean reflects = !kkr.lowerThan(MIN_CALC_COLOR_K);
+        boolean refracts = !kkt.lowerThan(MIN_CALC_COLOR_K);
+        if (!reflects && !refracts) return;
+
+        Vector v = hit.ray.getDirection();
+        Vector n = hit.gp.geometry.getNormal(hit.gp.point);
+        if (reflects)
+            calcGlobalEffect(tracing, hit, material, n, constructReflectedRay(hit.gp, v, n), material.kR, kkr);
+        if (refracts)
+            calcGlobalEffect(tracing, hit, material, n, constructRefractedRay(hit.gp, v, n), material.kT, kkt);
     }
 
     /**
-     * Calculate the global effects at a point
+     * Traces a beam of a hit - sums the local effects of the beam's hits, weighted by the part of each ray in the
+     * beam, and queues them for their own global effects
      *
+     * @param tracing  the state of the tracing
+     * @param hit      the hit
      * @param material the material of the body
      * @param n        normal
-     * @param ray      the ray to calculate the color for
-     * @param level    the level of the recursion
-     * @param k        the color at the point
-     * @param kx       the color of the effect
-     * @return the color at the point
+     * @param ray      the central ray of the beam
+     * @param kx       the attenuation factor of the effect
+     * @param kkx      the attenuation along the path including the effect
      */
-    private Color calcGlobalEffect(Material material, Vector n, Ray ray, int level, Double3 k, Double3 kx) {
-        Double3 kkx = k.product(kx);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K))
-            return Color.BLACK;
+    private void calcGlobalEffect(Tracing tracing, Hit hit, Material material, Vector n, Ray ray,
+                                  Double3 kx, Double3 kkx) {
+        int numOfRays = material.numOfBlurRays;
+        //a weak contribution doesn't deserve the full beam
+        if (adaptiveThreshold > 0 && numOfRays > MIN_ADAPTIVE_RAYS)
+            numOfRays = max(MIN_ADAPTIVE_RAYS, (int) ceil(numOfRays * maxComponent(kkx)));
+        numOfRays = min(numOfRays, tracing.budget);
+        if (numOfRays == 0) return;
+
+        //the roulette - a surviving beam stands for the ones that didn't survive
+        if (rouletteLevels >= 0 && MAX_CALC_COLOR_LEVEL - hit.level >= rouletteLevels) {
+            double survival = min(1, maxComponent(kkx));
+            if (getRandom().nextDouble() >= survival) return;
+            kx = kx.reduce(survival);
+            kkx = kkx.reduce(survival);
+        }
 
-        var rays = ray.generateBeamOfRays(n, material.blurGlassEffectRadius, material.blurGlassEffectDistance, material.numOfBlurRays);
-        return calcAverageColor(rays, level - 1, kkx).scale(kx);
+        var rays = ray.generateBeamOfRays(n, material.blurGlassEffectRadius, material.blurGlassEffectDistance,
+                numOfRays, material.sampler);
+        int size = min(rays.size(), tracing.budget);
+        GeoPoint[] hits = new GeoPoint[size];
+        Color[] colors = new Color[size];
+
+        //the adaptive sampling stops once the variance of the average of the colors (Welford's running
+        //variance), attenuated by kkx, is lower than the threshold
+        boolean adaptive = adaptiveThreshold > 0 && size > MIN_ADAPTIVE_RAYS;
+        double attenuation = maxComponent(kkx);
+        double threshold = adaptiveThreshold * adaptiveThreshold / (attenuation * attenuation);
+        double meanR = 0, meanG = 0, meanB = 0;
+        double m2R = 0, m2G = 0, m2B = 0;
+
+        int count = 0;
+        while (count < size) {
+            Ray beamRay = rays.get(count);
+            GeoPoint gp = findClosestIntersection(beamRay);
+            Color color = gp == null ? scene.background : calcLocalEffects(gp, beamRay, kkx);
+            hits[count] = gp;
+            colors[count] = color;
+            ++count;
+            if (!adaptive) continue;
+
+            Double3 rgb = color.getRgb();
+            double delta = rgb.getD1() - meanR;
+            meanR += delta / count;
+            m2R += delta * (rgb.getD1() - meanR);
+            delta = rgb.getD2() - meanG;
+            meanG += delta / count;
+            m2G += delta * (rgb.getD2() - meanG);
+            delta = rgb.getD3() - meanB;
+            meanB += delta / count;
+            m2B += delta * (rgb.getD3() - meanB);
+
+            //variance of the average = sample variance / count,
+            //checked when the count doubles, as each check is another chance of a false stop
+            if (count >= MIN_ADAPTIVE_RAYS && (count & (count - 1)) == 0
+                    && max(m2R, max(m2G, m2B)) / ((count - 1d) * count) < threshold)
+                break;
+        }
+        tracing.budget -= count;
+
+        //the rays share the weight of the beam equally
+        Double3 weight = hit.weight.product(kx).reduce(count);
+        int level = hit.level - 1;
+        for (int i = 0; i < count; ++i) {
+            tracing.add(colors[i], weight);
+            if (hits[i] != null && level > 1)
+                tracing.queue.add(new Hit(hits[i], rays.get(i), level, kkx, weight));
+        }
     }
 
     /**
@@ -153,27 +428,36 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the color at the point
      */
     private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
-        Color color = gp.geometry.getEmission();
+        Color emission = gp.geometry.getEmission();
 
         Vector n = gp.geometry.getNormal(gp.point); // Normal to point
         Vector v = ray.getDirection(); // Ray's direction
         double nv = alignZero(n.dotProduct(v));
-        if (nv == 0) return color;
+        if (nv == 0) return emission;
 
+        //the color is summed in locals instead of a chain of immutable colors and triads
+        Double3 rgb = emission.getRgb();
+        double r = rgb.getD1(), g = rgb.getD2(), b = rgb.getD3();
         Material material = gp.geometry.getMaterial();
+        Double3 kD = material.kD;
+        Double3 kS = material.kS;
         for (LightSource lightSource : scene.lights) {
             Vector l = lightSource.getL(gp.point);
             double nl = alignZero(n.dotProduct(l));
 
             if (nl * nv > 0) {
                 Double3 ktr = transparency(gp, l, n, lightSource);
-                if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(material, nl).add(calcSpecular(material, n, l, nl, v))));
+                if (!ktr.productLowerThan(k, MIN_CALC_COLOR_K)) {
+                    Double3 iL = lightSource.getIntensity(gp.point).getRgb();
+                    double diffusive = calcDiffusive(nl);
+                    double specular = calcSpecular(material, n, l, nl, v);
+                    r += iL.getD1() * ktr.getD1() * (kD.getD1() * diffusive + kS.getD1() * specular);
+                    g += iL.getD2() * ktr.getD2() * (kD.getD2() * diffusive + kS.getD2() * specular);
+                    b += iL.getD3() * ktr.getD3() * (kD.getD3() * diffusive + kS.getD3() * specular);
                 }
             }
         }
-        return color;
+        return new Color(r, g, b);
     }
 
     /**
@@ -186,20 +470,8 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the transparency of the point
      */
     private Double3 transparency(GeoPoint gp, Vector l, Vector n, LightSource light) {
-        Double3 ktr = Double3.ONE;
         Ray lightRay = new Ray(gp.point, l.scale(-1), n); // from point to light source
-        var intersections = scene.geometries.findGeoIntersections(lightRay, light.getDistance(gp.point));
-
-        if (intersections == null)
-            return ktr;
-
-        for (GeoPoint p : intersections) {
-            ktr = ktr.product(p.geometry.getMaterial().kT);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K))
-                return Double3.ZERO;
-        }
-
-        return ktr;
+        return scene.geometries.findTransparency(lightRay, light.getDistance(gp.point), MIN_CALC_COLOR_K);
     }
 
     /**
@@ -229,52 +501,43 @@ public class SimpleRayTracer extends RayTracerBase {
     }
 
     /**
-     * calculate Specular
+     * calculate the specular factor, the material's kS should be scaled by it
      *
      * @param material material of body
      * @param n        normal between point and geometry
      * @param l        Vector between lightSource and point
      * @param nl       angle
      * @param v        ray's direction
-     * @return Specular
+     * @return specular factor
      */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        Vector r = l.subtract(n.scale(nl * 2));
-        double minusVR = -alignZero(v.dotProduct(r));
-        return minusVR > 0 ? material.kS.scale(Math.pow(minusVR, material.nShininess)) : Double3.ZERO;
+    private double calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
+        //r = l - 2nl * n, computed by components
+        double nl2 = nl * 2;
+        double rx = l.getX() - n.getX() * nl2;
+        double ry = l.getY() - n.getY() * nl2;
+        double rz = l.getZ() - n.getZ() * nl2;
+        double minusVR = -alignZero(v.getX() * rx + v.getY() * ry + v.getZ() * rz);
+        return minusVR > 0 ? Math.pow(minusVR, material.nShininess) : 0;
     }
 
     /**
-     * Calculate the diffusion
+     * Calculate the diffusion factor, the material's kD should be scaled by it
      *
-     * @param material material of body
-     * @param nl       angle
-     * @return diffusion
+     * @param nl angle
+     * @return diffusion factor
      */
-    private Double3 calcDiffusive(Material material, double nl) {
-        return material.kD.scale(abs(nl));
+    private double calcDiffusive(double nl) {
+        return abs(nl);
     }
 
     /**
-     * Calculates the average color from a list of rays.
-     * This method traces each ray, finds the closest intersection,
-     * and computes the color at that intersection. It then averages
-     * the colors from all rays.
+     * Finds the largest component of a triad
      *
-     * @param rays  the list of rays to trace
-     * @param level the recursion level for reflection/refraction calculations
-     * @param kkx   a parameter for attenuation or some other purpose (context-dependent)
-     * @return the average color computed from all rays
+     * @param k the triad
+     * @return the largest component
      */
-    Color calcAverageColor(List<Ray> rays, int level, Double3 kkx) {
-        Color color = Color.BLACK;
-
-        for (Ray ray : rays) {
-            GeoPoint intersection = findClosestIntersection(ray);
-            color = color.add(intersection == null ? scene.background : calcColor(intersection, ray, level - 1, kkx));
-        }
-
-        return color.reduce(rays.size());
+    private static double maxComponent(Double3 k) {
+        return max(k.getD1(), max(k.getD2(), k.getD3()));
     }
 
 }
@@ -0,0 +1,175 @@
+package scene.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader of a memory mapped file.
+ * The file is mapped in windows, so files larger than a single mapping can be read as well.
+ */
+class MappedInput implements AutoCloseable {
+    /**
+     * Size of a mapped window
+     */
+    private static final long WINDOW = 1L << 30;
+
+    /**
+     * The file's channel
+     */
+    private final FileChannel channel;
+    /**
+     * The file's size
+     */
+    private final long size;
+    /**
+     * The byte order of the binary values
+     */
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+    /**
+     * The file position of the current window
+     */
+    private long start;
+    /**
+     * The current window
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * Opens and maps a file
+     *
+     * @param path the file's path
+     * @throws IOException if the file can't be opened or mapped
+     */
+    MappedInput(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        map(0);
+    }
+
+    /**
+     * maps the window starting at a file position
+     *
+     * @param position the file position
+     * @throws IOException if the file can't be mapped
+     */
+    private void map(long position) throws IOException {
+        start = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+        buffer.order(order);
+    }
+
+    /**
+     * Setter for the byte order of the binary values
+     *
+     * @param order the byte order
+     */
+    void setOrder(ByteOrder order) {
+        this.order = order;
+        buffer.order(order);
+    }
+
+    /**
+     * Reads the next byte
+     *
+     * @return the byte as an unsigned value, -1 at the end of the file
+     * @throws IOException if the file can't be mapped
+     */
+    int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            long position = start + buffer.limit();
+            if (position >= size) return -1;
+            map(position);
+        }
+        return buffer.get() & 0xff;
+    }
+
+    /**
+     * makes sure the current window holds the next bytes
+     *
+     * @param count the amount of bytes
+     * @throws IOException if the file ends before them or can't be mapped
+     */
+    private void ensure(int count) throws IOException {
+        if (buffer.remaining() >= count) return;
+        long position = start + buffer.position();
+        if (position + count > size) throw new EOFException("Unexpected end of file");
+        map(position);
+    }
+
+    /**
+     * Reads a signed byte
+     *
+     * @return the value
+     * @throws IOException if the file ends or can't be mapped
+     */
+    byte readByte() throws IOException {
+        ensure(1);
+        return buffer.get();
+    }
+
+    /**
+     * Reads a signed short
+     *
+     * @return the value
+     * @throws IOException if the file ends or can't be mapped
+     */
+    short readShort() throws IOException {
+        ensure(2);
+        return buffer.getShort();
+    }
+
+    /**
+     * Reads a signed int
+     *
+     * @return the value
+     * @throws IOException if the file ends or can't be mapped
+     */
+    int readInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a float
+     *
+     * @return the value
+     * @throws IOException if the file ends or can't be mapped
+     */
+    float readFloat() throws IOException {
+        ensure(4);
+        return buffer.getFloat();
+    }
+
+    /**
+     * Reads a double
+     *
+     * @return the value
+     * @throws IOException if the file ends or can't be mapped
+     */
+    double readDouble() throws IOException {
+        ensure(8);
+        return buffer.getDouble();
+    }
+
+    /**
+     * Skips bytes
+     *
+     * @param count the amount of bytes
+     * @throws IOException if the file ends or can't be mapped
+     */
+    void skip(int count) throws IOException {
+        ensure(count);
+        buffer.position(buffer.position() + count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+}
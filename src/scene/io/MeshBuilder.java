@@ -0,0 +1,90 @@
+package scene.io;
+
+import geometries.TriangleMesh;
+
+import java.util.Arrays;
+
+/**
+ * Collects the vertices and the faces of a mesh while it is read, in growing flat arrays
+ */
+class MeshBuilder {
+    /**
+     * Coordinates of the vertices, three values per vertex
+     */
+    private double[] vertices;
+    /**
+     * Amount of vertices collected
+     */
+    private int vertexCount = 0;
+    /**
+     * Vertex indices of the faces, three values per face
+     */
+    private int[] faces;
+    /**
+     * Amount of faces collected
+     */
+    private int faceCount = 0;
+
+    /**
+     * Creates a builder
+     *
+     * @param vertexCount the expected amount of vertices
+     * @param faceCount   the expected amount of faces
+     */
+    MeshBuilder(int vertexCount, int faceCount) {
+        vertices = new double[3 * Math.max(vertexCount, 16)];
+        faces = new int[3 * Math.max(faceCount, 16)];
+    }
+
+    /**
+     * Getter for the amount of vertices collected
+     *
+     * @return the amount of vertices
+     */
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Adds a vertex
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     */
+    void addVertex(double x, double y, double z) {
+        if (3 * vertexCount + 3 > vertices.length)
+            vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+        int v = 3 * vertexCount++;
+        vertices[v] = x;
+        vertices[v + 1] = y;
+        vertices[v + 2] = z;
+    }
+
+    /**
+     * Adds a polygon as a fan of triangles around its first vertex, a polygon of less than 3 vertices is ignored
+     *
+     * @param indices the vertex indices of the polygon
+     * @param count   the amount of vertices of the polygon
+     */
+    void addPolygon(int[] indices, int count) {
+        for (int i = 2; i < count; ++i) {
+            if (3 * faceCount + 3 > faces.length)
+                faces = Arrays.copyOf(faces, 2 * faces.length);
+            int f = 3 * faceCount++;
+            faces[f] = indices[0];
+            faces[f + 1] = indices[i - 1];
+            faces[f + 2] = indices[i];
+        }
+    }
+
+    /**
+     * Creates the mesh of the collected vertices and faces
+     *
+     * @return the mesh
+     * @throws IllegalArgumentException if there are no faces or a face refers to a missing vertex
+     */
+    TriangleMesh build() {
+        return new TriangleMesh(Arrays.copyOf(vertices, 3 * vertexCount), Arrays.copyOf(faces, 3 * faceCount));
+    }
+}
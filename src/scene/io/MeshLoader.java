@@ -0,0 +1,68 @@
+package scene.io;
+
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Loads triangle meshes from model files - Wavefront OBJ and binary PLY.
+ * The files are memory mapped and parsed straight from the mapped bytes,
+ * and every model is loaded as a single {@link TriangleMesh} that can be added to the scene's geometries.
+ */
+public final class MeshLoader {
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private MeshLoader() {
+    }
+
+    /**
+     * Loads a mesh by the file's extension - ".obj" or ".ply"
+     *
+     * @param path the file's path
+     * @return the mesh
+     * @throws IllegalArgumentException if the extension is unknown or the file is malformed
+     * @throws IllegalStateException    if the file can't be read
+     */
+    public static TriangleMesh load(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".obj")) return loadObj(path);
+        if (name.endsWith(".ply")) return loadPly(path);
+        throw new IllegalArgumentException("Unknown model file type: " + path);
+    }
+
+    /**
+     * Loads a mesh from a Wavefront OBJ file. The positions and the faces are read,
+     * polygons are split into triangles and all the other statements are skipped.
+     *
+     * @param path the file's path
+     * @return the mesh
+     * @throws IllegalArgumentException if the file is malformed
+     * @throws IllegalStateException    if the file can't be read
+     */
+    public static TriangleMesh loadObj(Path path) {
+        try (MappedInput in = new MappedInput(path)) {
+            return new ObjReader(in).read();
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error reading " + path, e);
+        }
+    }
+
+    /**
+     * Loads a mesh from a binary PLY file. The vertex positions and the faces are read,
+     * polygons are split into triangles and all the other properties are skipped.
+     *
+     * @param path the file's path
+     * @return the mesh
+     * @throws IllegalArgumentException if the file is malformed or isn't binary
+     * @throws IllegalStateException    if the file can't be read
+     */
+    public static TriangleMesh loadPly(Path path) {
+        try (MappedInput in = new MappedInput(path)) {
+            return new PlyReader(in).read();
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error reading " + path, e);
+        }
+    }
+}
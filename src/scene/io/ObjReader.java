@@ -0,0 +1,227 @@
+package scene.io;
+
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reader of Wavefront OBJ files.
+ * Only the vertex positions ("v") and the faces ("f") are read, all the other statements are skipped.
+ * The numbers are parsed straight from the mapped bytes, no strings are created.
+ */
+class ObjReader {
+    /**
+     * Exact powers of ten for the number parsing
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /**
+     * Maximum digits which fit in the mantissa
+     */
+    private static final int MAX_DIGITS = 18;
+
+    /**
+     * The input file
+     */
+    private final MappedInput in;
+    /**
+     * The collected mesh
+     */
+    private final MeshBuilder mesh = new MeshBuilder(1024, 2048);
+    /**
+     * Vertex indices of the current polygon
+     */
+    private int[] polygon = new int[8];
+    /**
+     * The current character, -1 at the end of the file
+     */
+    private int c;
+    /**
+     * The current line number, for the error messages
+     */
+    private int line = 1;
+
+    /**
+     * Creates a reader
+     *
+     * @param in the input file
+     */
+    ObjReader(MappedInput in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the file
+     *
+     * @return the mesh
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    TriangleMesh read() throws IOException {
+        next();
+        while (c != -1) {
+            skipBlanks();
+            if (c == 'v') {
+                next();
+                if (isBlank()) mesh.addVertex(number(), number(), number());
+            } else if (c == 'f') {
+                next();
+                if (isBlank()) face();
+            }
+            skipLine();
+        }
+        return mesh.build();
+    }
+
+    /**
+     * moves to the next character
+     *
+     * @throws IOException if the file can't be read
+     */
+    private void next() throws IOException {
+        c = in.read();
+    }
+
+    /**
+     * checks whether the current character is a space or a tab
+     *
+     * @return true if it is
+     */
+    private boolean isBlank() {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * checks whether the current character ends the statement - an end of line, a comment or the end of the file
+     *
+     * @return true if it does
+     */
+    private boolean isEnd() {
+        return c == '\n' || c == '\r' || c == '#' || c == -1;
+    }
+
+    /**
+     * skips spaces and tabs
+     *
+     * @throws IOException if the file can't be read
+     */
+    private void skipBlanks() throws IOException {
+        while (isBlank()) next();
+    }
+
+    /**
+     * skips the rest of the line including its end
+     *
+     * @throws IOException if the file can't be read
+     */
+    private void skipLine() throws IOException {
+        while (c != '\n' && c != -1) next();
+        if (c == '\n') {
+            ++line;
+            next();
+        }
+    }
+
+    /**
+     * reads the vertices of a face, every vertex is "v", "v/vt", "v//vn" or "v/vt/vn",
+     * and a negative index counts back from the last vertex
+     *
+     * @throws IOException if the file can't be read
+     */
+    private void face() throws IOException {
+        int count = 0;
+        skipBlanks();
+        while (!isEnd()) {
+            int index = integer();
+            if (index > 0) --index;
+            else if (index < 0) index += mesh.getVertexCount();
+            else throw malformed("Vertex index 0");
+            if (count == polygon.length) polygon = Arrays.copyOf(polygon, 2 * count);
+            polygon[count++] = index;
+            //skip the texture and the normal indices
+            while (!isBlank() && !isEnd()) next();
+            skipBlanks();
+        }
+        mesh.addPolygon(polygon, count);
+    }
+
+    /**
+     * parses an integer
+     *
+     * @return the integer
+     * @throws IOException if the file can't be read
+     */
+    private int integer() throws IOException {
+        boolean negative = c == '-';
+        if (negative || c == '+') next();
+        if (c < '0' || c > '9') throw malformed("Expected an integer");
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            next();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * parses a decimal number, optionally with a fraction and an exponent
+     *
+     * @return the number
+     * @throws IOException if the file can't be read
+     */
+    private double number() throws IOException {
+        skipBlanks();
+        boolean negative = c == '-';
+        if (negative || c == '+') next();
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        while (c >= '0' && c <= '9') {
+            any = true;
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) ++digits;
+            } else ++exponent;
+            next();
+        }
+        if (c == '.') {
+            next();
+            while (c >= '0' && c <= '9') {
+                any = true;
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) ++digits;
+                    --exponent;
+                }
+                next();
+            }
+        }
+        if (!any) throw malformed("Expected a number");
+        if (c == 'e' || c == 'E') {
+            next();
+            exponent += integer();
+        }
+
+        double value = mantissa;
+        //the table's powers are exact, so common coordinates are rounded only once
+        if (mantissa != 0 && exponent > 0)
+            value *= exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[exponent] : Math.pow(10, exponent);
+        else if (mantissa != 0 && exponent < 0)
+            value /= -exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[-exponent] : Math.pow(10, -exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * creates the exception of a malformed file
+     *
+     * @param message the problem
+     * @return the exception
+     */
+    private IllegalArgumentException malformed(String message) {
+        return new IllegalArgumentException(message + " in OBJ file, line " + line);
+    }
+}
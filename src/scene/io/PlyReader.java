@@ -0,0 +1,328 @@
+package scene.io;
+
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reader of binary PLY files, little or big endian.
+ * The vertex positions (x, y, z) and the vertex index lists of the faces are read,
+ * all the other properties and elements are skipped.
+ */
+class PlyReader {
+    /**
+     * The scalar types of PLY properties
+     */
+    private enum Type {
+        /**
+         * signed 8 bits
+         */
+        INT8(1),
+        /**
+         * unsigned 8 bits
+         */
+        UINT8(1),
+        /**
+         * signed 16 bits
+         */
+        INT16(2),
+        /**
+         * unsigned 16 bits
+         */
+        UINT16(2),
+        /**
+         * signed 32 bits
+         */
+        INT32(4),
+        /**
+         * unsigned 32 bits
+         */
+        UINT32(4),
+        /**
+         * 32 bits floating point
+         */
+        FLOAT32(4),
+        /**
+         * 64 bits floating point
+         */
+        FLOAT64(8);
+
+        /**
+         * Size in bytes
+         */
+        final int size;
+
+        /**
+         * Creates a type
+         *
+         * @param size size in bytes
+         */
+        Type(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Finds a type by its name in the header, either the old or the sized name
+         *
+         * @param name the name
+         * @return the type
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        static Type of(String name) {
+            return switch (name) {
+                case "char", "int8" -> INT8;
+                case "uchar", "uint8" -> UINT8;
+                case "short", "int16" -> INT16;
+                case "ushort", "uint16" -> UINT16;
+                case "int", "int32" -> INT32;
+                case "uint", "uint32" -> UINT32;
+                case "float", "float32" -> FLOAT32;
+                case "double", "float64" -> FLOAT64;
+                default -> throw new IllegalArgumentException("Unknown property type in PLY file: " + name);
+            };
+        }
+    }
+
+    /**
+     * A property of an element
+     *
+     * @param name      the property's name
+     * @param type      the type of the value, or of the items of a list
+     * @param countType the type of the count of a list, null if the property isn't a list
+     */
+    private record Property(String name, Type type, Type countType) {
+    }
+
+    /**
+     * An element of the file
+     *
+     * @param name       the element's name
+     * @param count      the amount of items
+     * @param properties the properties of every item
+     */
+    private record Element(String name, int count, List<Property> properties) {
+    }
+
+    /**
+     * The input file
+     */
+    private final MappedInput in;
+
+    /**
+     * Creates a reader
+     *
+     * @param in the input file
+     */
+    PlyReader(MappedInput in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the file
+     *
+     * @return the mesh
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file is malformed or isn't binary
+     */
+    TriangleMesh read() throws IOException {
+        List<Element> elements = header();
+        int vertexCount = 0;
+        int faceCount = 0;
+        for (Element element : elements) {
+            if (element.name.equals("vertex")) vertexCount = element.count;
+            else if (element.name.equals("face")) faceCount = element.count;
+        }
+
+        MeshBuilder mesh = new MeshBuilder(vertexCount, faceCount);
+        for (Element element : elements) {
+            switch (element.name) {
+                case "vertex" -> vertices(element, mesh);
+                case "face" -> faces(element, mesh);
+                default -> skip(element);
+            }
+        }
+        return mesh.build();
+    }
+
+    /**
+     * reads the header up to its end, and sets the byte order of the input
+     *
+     * @return the elements of the file
+     * @throws IOException if the file can't be read
+     */
+    private List<Element> header() throws IOException {
+        if (!line().equals("ply"))
+            throw new IllegalArgumentException("Not a PLY file");
+
+        List<Element> elements = new ArrayList<>();
+        for (String line = line(); !line.equals("end_header"); line = line()) {
+            String[] words = line.trim().split("\\s+");
+            switch (words[0]) {
+                case "format" -> {
+                    if (words.length < 2) throw new IllegalArgumentException("Malformed PLY format line");
+                    switch (words[1]) {
+                        case "binary_little_endian" -> in.setOrder(ByteOrder.LITTLE_ENDIAN);
+                        case "binary_big_endian" -> in.setOrder(ByteOrder.BIG_ENDIAN);
+                        default -> throw new IllegalArgumentException("Only binary PLY files are supported");
+                    }
+                }
+                case "element" -> {
+                    if (words.length < 3) throw new IllegalArgumentException("Malformed PLY element line");
+                    elements.add(new Element(words[1], Integer.parseInt(words[2]), new ArrayList<>()));
+                }
+                case "property" -> {
+                    if (elements.isEmpty()) throw new IllegalArgumentException("PLY property without an element");
+                    List<Property> properties = elements.getLast().properties;
+                    if (words.length == 5 && words[1].equals("list"))
+                        properties.add(new Property(words[4], Type.of(words[3]), Type.of(words[2])));
+                    else if (words.length == 3)
+                        properties.add(new Property(words[2], Type.of(words[1]), null));
+                    else throw new IllegalArgumentException("Malformed PLY property line");
+                }
+                default -> {
+                    //comments and object information
+                }
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * reads a line of the header
+     *
+     * @return the line without its end
+     * @throws IOException if the file can't be read
+     */
+    private String line() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c == -1) throw new IllegalArgumentException("Unexpected end of PLY header");
+            if (c != '\r') builder.append((char) c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * reads the vertices
+     *
+     * @param element the vertex element
+     * @param mesh    the mesh to add the vertices to
+     * @throws IOException if the file can't be read
+     */
+    private void vertices(Element element, MeshBuilder mesh) throws IOException {
+        List<Property> properties = element.properties;
+        int size = properties.size();
+        //which coordinate every property is: 0, 1, 2 for x, y, z and -1 for other properties
+        int[] coordinate = new int[size];
+        boolean[] found = new boolean[3];
+        for (int p = 0; p < size; ++p) {
+            Property property = properties.get(p);
+            coordinate[p] = switch (property.name) {
+                case "x" -> 0;
+                case "y" -> 1;
+                case "z" -> 2;
+                default -> -1;
+            };
+            if (coordinate[p] != -1) {
+                if (property.countType != null) throw new IllegalArgumentException("PLY vertex coordinate is a list");
+                found[coordinate[p]] = true;
+            }
+        }
+        if (!found[0] || !found[1] || !found[2])
+            throw new IllegalArgumentException("PLY vertex element without x, y and z");
+
+        double[] xyz = new double[3];
+        for (int i = 0; i < element.count; ++i) {
+            for (int p = 0; p < size; ++p) {
+                if (coordinate[p] == -1) skip(properties.get(p));
+                else xyz[coordinate[p]] = value(properties.get(p).type);
+            }
+            mesh.addVertex(xyz[0], xyz[1], xyz[2]);
+        }
+    }
+
+    /**
+     * reads the faces
+     *
+     * @param element the face element
+     * @param mesh    the mesh to add the faces to
+     * @throws IOException if the file can't be read
+     */
+    private void faces(Element element, MeshBuilder mesh) throws IOException {
+        List<Property> properties = element.properties;
+        int size = properties.size();
+        int indices = -1;
+        for (int p = 0; p < size; ++p) {
+            Property property = properties.get(p);
+            if (property.countType != null
+                    && (property.name.equals("vertex_indices") || property.name.equals("vertex_index")))
+                indices = p;
+        }
+        if (indices == -1)
+            throw new IllegalArgumentException("PLY face element without vertex indices");
+
+        Type countType = properties.get(indices).countType;
+        Type indexType = properties.get(indices).type;
+        int[] polygon = new int[8];
+        for (int i = 0; i < element.count; ++i) {
+            for (int p = 0; p < size; ++p) {
+                if (p != indices) {
+                    skip(properties.get(p));
+                    continue;
+                }
+                int count = (int) value(countType);
+                if (count > polygon.length) polygon = Arrays.copyOf(polygon, count);
+                for (int v = 0; v < count; ++v)
+                    polygon[v] = (int) value(indexType);
+                mesh.addPolygon(polygon, count);
+            }
+        }
+    }
+
+    /**
+     * skips all the items of an element
+     *
+     * @param element the element
+     * @throws IOException if the file can't be read
+     */
+    private void skip(Element element) throws IOException {
+        for (int i = 0; i < element.count; ++i)
+            for (Property property : element.properties)
+                skip(property);
+    }
+
+    /**
+     * skips the value of a property
+     *
+     * @param property the property
+     * @throws IOException if the file can't be read
+     */
+    private void skip(Property property) throws IOException {
+        int count = property.countType == null ? 1 : (int) value(property.countType);
+        in.skip(count * property.type.size);
+    }
+
+    /**
+     * reads a value
+     *
+     * @param type the value's type
+     * @return the value
+     * @throws IOException if the file can't be read
+     */
+    private double value(Type type) throws IOException {
+        return switch (type) {
+            case INT8 -> in.readByte();
+            case UINT8 -> in.readByte() & 0xff;
+            case INT16 -> in.readShort();
+            case UINT16 -> in.readShort() & 0xffff;
+            case INT32 -> in.readInt();
+            case UINT32 -> in.readInt() & 0xffffffffL;
+            case FLOAT32 -> in.readFloat();
+            case FLOAT64 -> in.readDouble();
+        };
+    }
+}
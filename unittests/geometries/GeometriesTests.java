@@ -1,10 +1,15 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -55,4 +60,242 @@ class GeometriesTests {
         assertEquals(2, geometries.findIntersections(r01025).size(), " a few bodies are intersected");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Geometries#setSAHBVH()}.
+     */
+    @Test
+    void testSetSAHBVH() {
+        final Geometries flat = new Geometries();
+        final Geometries sah = new Geometries().setSAHParameters(2, 0.125, 1);
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j) {
+                Sphere sphere = new Sphere(new Point(i * 3, j * 3, 0), 1);
+                flat.add(sphere);
+                sah.add(sphere);
+            }
+        sah.setSAHBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses a row of spheres
+        final Ray row = new Ray(new Point(-5, 6, 0), new Vector(1, 0, 0));
+        assertEquals(20, sah.findIntersections(row).size(), "Ray crosses a row of spheres");
+        // TC02: Ray misses all the spheres
+        assertNull(sah.findIntersections(new Ray(new Point(-5, 1.5, 0), new Vector(1, 0, 0))),
+                "Ray misses all the spheres");
+        // TC03: Diagonal ray finds the same points as the flat collection
+        final Ray diagonal = new Ray(new Point(-1, -1, 0.5), new Vector(1, 1, 0));
+        assertEquals(flat.findIntersections(diagonal).size(), sah.findIntersections(diagonal).size(),
+                "Diagonal ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: Shapes added after the build are found
+        sah.add(new Sphere(new Point(-3, 6, 0), 1));
+        assertEquals(22, sah.findIntersections(row).size(), "Shape added after build");
+        // TC05: Illegal parameters
+        assertThrows(IllegalArgumentException.class, () -> sah.setSAHParameters(0, 1, 1), "Leaf size 0");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#setSAHBVH()} - the traversal finds what the flat list finds.
+     */
+    @Test
+    void testSAHTraversal() {
+        final Geometries flat = new Geometries();
+        final Geometries sah = new Geometries();
+        scatterSpheres(300, flat, sah);
+        sah.setSAHBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays through the spheres find the same closest hits and the same hit sets
+        assertSameHits(flat, sah, 200);
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Leaves of a single sphere
+        final Geometries small = new Geometries();
+        scatterSpheres(300, small);
+        small.setSAHParameters(1, 0.125, 1).setSAHBVH();
+        assertSameHits(flat, small, 200);
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#setBVH()}.
+     */
+    @Test
+    void testSetBVH() {
+        final Geometries flat = new Geometries();
+        final Geometries bvh = new Geometries();
+        scatterSpheres(500, flat, bvh);
+        bvh.setBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The median splits divide the spheres into a tree
+        assertTrue(bvh.getBVHNodeCount() > 100, "Split nodes");
+        // TC02: Random rays find the same closest hits and the same hit sets as the flat list
+        assertSameHits(flat, bvh, 200);
+
+        // =============== Boundary Values Tests ==================
+        // TC03: A single sphere is a single leaf
+        final Geometries single = new Geometries(new Sphere(Point.ZERO, 1));
+        single.setBVH();
+        assertEquals(1, single.getBVHNodeCount(), "Single leaf");
+    }
+
+    /**
+     * Adds the same random spheres (of a fixed seed) into collections
+     *
+     * @param count       the number of spheres
+     * @param collections the collections
+     */
+    private static void scatterSpheres(int count, Geometries... collections) {
+        final Random random = new Random(7);
+        for (int i = 0; i < count; ++i) {
+            Sphere sphere = new Sphere(new Point(random.nextDouble(100), random.nextDouble(100),
+                    random.nextDouble(100)), 0.5 + random.nextDouble(3));
+            for (Geometries collection : collections)
+                collection.add(sphere);
+        }
+    }
+
+    /**
+     * Asserts that random rays (of a fixed seed) find the same intersections in a hierarchy as in a flat list
+     *
+     * @param flat  the flat list
+     * @param tree  the same geometries in a hierarchy
+     * @param count the number of rays
+     */
+    private static void assertSameHits(Geometries flat, Geometries tree, int count) {
+        final Random random = new Random(11);
+        int hits = 0;
+        for (int i = 0; i < count; ++i) {
+            Point head = new Point(random.nextDouble(-20, 120), random.nextDouble(-20, 120), -20);
+            Point target = new Point(random.nextDouble(100), random.nextDouble(100), random.nextDouble(100));
+            Ray ray = new Ray(head, target.subtract(head));
+
+            List<Point> expected = flat.findIntersections(ray);
+            List<Point> actual = tree.findIntersections(ray);
+            if (expected == null) {
+                assertNull(actual, "Ray " + i + " misses");
+                assertNull(tree.findClosestGeoIntersection(ray), "Ray " + i + " has no closest hit");
+                continue;
+            }
+            ++hits;
+            assertNotNull(actual, "Ray " + i + " hits");
+            assertEquals(expected.size(), actual.size(), "Hits of ray " + i);
+            assertTrue(expected.containsAll(actual), "Hit points of ray " + i);
+            assertEquals(flat.findClosestGeoIntersection(ray).point, tree.findClosestGeoIntersection(ray).point,
+                    "Closest hit of ray " + i);
+        }
+        //the rays are worth comparing only if many of them hit
+        assertTrue(hits > count / 4, "Rays hitting spheres");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findClosestGeoIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        final Sphere near = new Sphere(new Point(0, 0, 5), 1);
+        final Sphere far = new Sphere(new Point(0, 0, 10), 1);
+        final Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        final Geometries flat = new Geometries(far, p, near);
+        final Geometries sah = new Geometries(far, near, new Sphere(new Point(5, 5, 5), 1));
+        sah.setSAHBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Closest point of a flat collection
+        assertEquals(new Point(0, 0, 0.5), flat.findClosestGeoIntersection(ray).point, "Flat collection");
+        // TC02: Closest point of a hierarchy
+        assertEquals(new Point(0, 0, 4), sah.findClosestGeoIntersection(ray).point, "Hierarchy");
+        // TC03: Nobody is intersected
+        assertNull(sah.findClosestGeoIntersection(new Ray(Point.ZERO, new Vector(0, 0, -1))), "No body is intersected");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: The closest point is beyond the max distance
+        assertNull(sah.findClosestGeoIntersection(ray, 3), "Beyond max distance");
+        // TC05: Ray starts inside the nearest sphere
+        assertEquals(new Point(0, 0, 6), sah.findClosestGeoIntersection(new Ray(new Point(0, 0, 5.5), ray.getDirection())).point,
+                "Ray starts inside a sphere");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findTransparency(Ray, double, Double3)}.
+     */
+    @Test
+    void testFindTransparency() {
+        final Double3 minK = new Double3(0.001);
+        final Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        final Geometry glass = new Sphere(new Point(0, 0, 5), 1).setMaterial(new Material().setKT(0.5));
+        final Geometry wall = new Sphere(new Point(0, 0, 10), 1);
+        final Geometries geometries = new Geometries(glass, wall, new Sphere(new Point(5, 5, 5), 1));
+        geometries.setSAHBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray crosses a transparent sphere twice
+        assertEquals(new Double3(0.25), geometries.findTransparency(ray, 7, minK), "Transparent sphere");
+        // TC02: An opaque sphere blocks the ray
+        assertEquals(Double3.ZERO, geometries.findTransparency(ray, 20, minK), "Opaque sphere");
+        // TC03: Nothing blocks the ray
+        assertEquals(Double3.ONE, geometries.findTransparency(ray, 3, minK), "Nothing blocks");
+        // TC04: Any hit checks
+        assertTrue(geometries.isOccluded(ray, 20), "Occluded");
+        assertFalse(geometries.isOccluded(ray, 3), "Not occluded");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: The transparency is lower than the minimum
+        assertEquals(Double3.ZERO, geometries.findTransparency(ray, 7, new Double3(0.5)), "Lower than minimum");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#setSAHBVH()} with unbounded geometries.
+     */
+    @Test
+    void testUnboundedGeometries() {
+        final Plane floor = new Plane(new Point(0, 0, -2), new Vector(0, 0, 1));
+        final Sphere sphere = new Sphere(new Point(0, 0, 5), 1);
+        final Geometries sah = new Geometries(floor, sphere, new Sphere(new Point(5, 5, 5), 1),
+                new Tube(new Ray(Point.ZERO, new Vector(1, 0, 0)), 1));
+        sah.setSAHBVH();
+        final Geometries bvh = new Geometries(floor, sphere, new Sphere(new Point(5, 5, 5), 1));
+        bvh.setBVH();
+        final Ray up = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        final Ray down = new Ray(new Point(0, 0, 10), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray hits the plane and the sphere in the hierarchy
+        assertEquals(3, sah.findIntersections(down).size(), "Plane and sphere");
+        assertEquals(3, bvh.findIntersections(down).size(), "Plane and sphere, median split");
+        // TC02: The sphere in the hierarchy is closer than the plane
+        assertEquals(new Point(0, 0, 6), sah.findClosestGeoIntersection(down).point, "Sphere is closer");
+        // TC03: The plane is closer than the sphere in the hierarchy
+        final Ray slanted = new Ray(new Point(0, 0, -1), new Vector(0, 0.1, -1));
+        assertEquals(new Point(0, 0.1, -2), sah.findClosestGeoIntersection(slanted).point, "Plane is closer");
+        // TC04: Only the plane blocks the ray
+        assertTrue(sah.isOccluded(slanted, 5), "Occluded by the plane");
+        assertEquals(Double3.ZERO, sah.findTransparency(slanted, 5, new Double3(0.001)), "Plane transparency");
+        // TC05: Only the sphere in the hierarchy blocks the ray
+        assertTrue(sah.isOccluded(up, 10), "Occluded by the sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC06: Nothing but unbounded geometries
+        final Geometries planes = new Geometries(floor);
+        planes.setSAHBVH();
+        assertEquals(new Point(0, 0, -2), planes.findClosestGeoIntersection(down).point, "Only a plane");
+        assertFalse(planes.isOccluded(up, 10), "Only a plane, not occluded");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#flatten()}.
+     */
+    @Test
+    void testFlatten() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The geometries of nested groups in the order they were added
+        assertEquals(List.of(s, t, p), new Geometries(s, new Geometries(t, new Geometries(p))).flatten(),
+                "Nested groups");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: An empty group
+        assertTrue(new Geometries(new Geometries()).flatten().isEmpty(), "Empty groups");
+    }
+}
@@ -0,0 +1,205 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.TriangleMesh class
+ */
+public class TriangleMeshTests {
+    /**
+     * Delta value for accuracy when comparing the numbers of type 'double' in
+     * assertEquals
+     */
+    private final static double DELTA = 0.000001;
+
+    /**
+     * Direction up the z axis
+     */
+    private final Vector v001 = new Vector(0, 0, 1);
+
+    /**
+     * A square on the xy plane from (0,0,0) to (1,1,0) made of two faces sharing the diagonal
+     */
+    private final TriangleMesh square = new TriangleMesh(
+            new double[]{0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0},
+            new int[]{0, 1, 2, 0, 2, 3});
+
+    /**
+     * Creates a grid of n*n squares on the xy plane from (0,0,z) to (n,n,z)
+     *
+     * @param n the number of squares on each side
+     * @param z the height of the grid
+     * @return the mesh
+     */
+    private static TriangleMesh grid(int n, double z) {
+        double[] vertices = new double[3 * (n + 1) * (n + 1)];
+        for (int i = 0; i <= n; ++i)
+            for (int j = 0; j <= n; ++j) {
+                int v = 3 * (i * (n + 1) + j);
+                vertices[v] = j;
+                vertices[v + 1] = i;
+                vertices[v + 2] = z;
+            }
+        int[] faces = new int[6 * n * n];
+        int f = 0;
+        for (int i = 0; i < n; ++i)
+            for (int j = 0; j < n; ++j) {
+                int a = i * (n + 1) + j;
+                int b = a + 1;
+                int c = a + n + 2;
+                int d = a + n + 1;
+                faces[f++] = a;
+                faces[f++] = b;
+                faces[f++] = c;
+                faces[f++] = a;
+                faces[f++] = c;
+                faces[f++] = d;
+            }
+        return new TriangleMesh(vertices, faces);
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    public void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Correct mesh
+        assertDoesNotThrow(() -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1, 2}),
+                "Failed constructing a correct mesh");
+        assertEquals(2, square.getFaceCount(), "Wrong number of faces");
+        // TC02: Coordinates aren't triples
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1}, new int[]{0, 1, 2}),
+                "Constructed a mesh with a partial vertex");
+        // TC03: Indices aren't triples
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1}),
+                "Constructed a mesh with a partial face");
+        // TC04: A face refers to a missing vertex
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1, 3}),
+                "Constructed a mesh with a missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: No faces
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0}, new int[]{}),
+                "Constructed a mesh without faces");
+        // TC12: Negative vertex index
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1, -1}),
+                "Constructed a mesh with a negative vertex index");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(primitives.Point)}.
+     */
+    @Test
+    public void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Normal of a point on the mesh
+        assertEquals(v001, square.getNormal(new Point(0.5, 0.2, 0)), "Wrong normal");
+        // TC02: Normal of the face which was hit
+        GeoPoint hit = square.findClosestGeoIntersection(new Ray(new Point(0.2, 0.5, -1), v001));
+        Vector normal = hit.geometry.getNormal(hit.point);
+        assertEquals(v001, normal, "Wrong normal of the hit face");
+        assertEquals(1, normal.length(), DELTA, "Normal is len not 1");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findGeoIntersections(Ray, double)}.
+     */
+    @Test
+    public void testFindGeoIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray hits the first face (1 point)
+        var result = square.findIntersections(new Ray(new Point(0.7, 0.2, -1), v001));
+        assertEquals(List.of(new Point(0.7, 0.2, 0)), result, "Ray hits the first face");
+        // TC02: Ray hits the second face (1 point)
+        result = square.findIntersections(new Ray(new Point(0.2, 0.7, -1), v001));
+        assertEquals(List.of(new Point(0.2, 0.7, 0)), result, "Ray hits the second face");
+        // TC03: Ray misses the mesh (0 points)
+        assertNull(square.findIntersections(new Ray(new Point(2, 0.5, -1), v001)), "Ray misses the mesh");
+        // TC04: Ray starts after the mesh (0 points)
+        assertNull(square.findIntersections(new Ray(new Point(0.5, 0.2, 1), v001)), "Ray starts after the mesh");
+        // TC05: Mesh is farther than the max distance (0 points)
+        assertNull(square.findGeoIntersections(new Ray(new Point(0.5, 0.2, -1), v001), 0.5),
+                "Mesh is farther than the max distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray crosses an outer edge (1 point) - the edges belong to the faces
+        result = square.findIntersections(new Ray(new Point(0.5, 0, -1), v001));
+        assertEquals(List.of(new Point(0.5, 0, 0)), result, "Ray crosses an outer edge");
+        // TC12: Ray is parallel to the mesh (0 points)
+        assertNull(square.findIntersections(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 0, 0))),
+                "Ray is parallel to the mesh");
+        // TC13: A sub-micrometre face is hit like a large one (1 point)
+        final TriangleMesh tiny = new TriangleMesh(new double[]{0, 0, 0, 1e-7, 0, 0, 0, 1e-7, 0}, new int[]{0, 1, 2});
+        result = tiny.findIntersections(new Ray(new Point(2e-8, 2e-8, -1), v001));
+        assertNotNull(result, "Ray hits a tiny face");
+        assertEquals(1, result.size(), "Ray hits a tiny face once");
+        assertEquals(0, result.getFirst().getZ(), DELTA, "Ray hits a tiny face on its plane");
+        // TC14: A ray almost parallel to a huge face is parallel to it, as to a unit face (0 points)
+        final TriangleMesh huge = new TriangleMesh(new double[]{0, 0, 0, 1e7, 0, 0, 0, 1e7, 0}, new int[]{0, 1, 2});
+        assertNull(huge.findIntersections(new Ray(new Point(-1, 1e6, -1e-8), new Vector(1, 0, 1e-14))),
+                "Ray almost parallel to a huge face");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findClosestGeoIntersection(Ray, double)}.
+     */
+    @Test
+    public void testFindClosestGeoIntersection() {
+        TriangleMesh lower = grid(20, 0);
+        Geometries layers = new Geometries(lower, grid(20, 1));
+        layers.setCBR();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest of two layers
+        GeoPoint closest = layers.findClosestGeoIntersection(new Ray(new Point(7.3, 11.6, -1), v001));
+        assertEquals(new Point(7.3, 11.6, 0), closest.point, "Wrong closest point");
+        assertSame(lower.getMaterial(), closest.geometry.getMaterial(), "A face doesn't share the mesh's material");
+        // TC02: A slanted ray far in the grid
+        Ray slanted = new Ray(new Point(0.5, 0.5, -1), new Vector(7.6, 6.2, 1));
+        assertEquals(new Point(8.1, 6.7, 0), layers.findClosestGeoIntersection(slanted).point,
+                "Wrong closest point of a slanted ray");
+        assertEquals(2, layers.findGeoIntersections(slanted).size(), "Wrong number of points of a slanted ray");
+        // TC03: Ray misses the grid
+        assertNull(layers.findClosestGeoIntersection(new Ray(new Point(-1, -1, -1), v001)), "Ray misses the grid");
+        // TC04: Occlusion within and beyond the distance
+        Ray up = new Ray(new Point(3.3, 4.4, 0.5), v001);
+        assertTrue(layers.isOccluded(up, 1), "The upper layer doesn't occlude");
+        assertFalse(layers.isOccluded(up, 0.4), "Occluded beyond the distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray on the shared diagonal of a square
+        closest = lower.findClosestGeoIntersection(new Ray(new Point(3.5, 3.5, 2), new Vector(0, 0, -1)));
+        assertEquals(new Point(3.5, 3.5, 0), closest.point, "Wrong point on a shared edge");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findTransparency(Ray, double, Double3)}.
+     */
+    @Test
+    public void testFindTransparency() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses a transparent mesh
+        TriangleMesh glass = grid(4, 0);
+        glass.setMaterial(new Material().setKT(0.5));
+        glass.setBoundingBox();
+        Ray up = new Ray(new Point(1.3, 2.6, -1), v001);
+        assertEquals(new Double3(0.5), glass.findTransparency(up, 2, new Double3(0.001)),
+                "Wrong transparency of the mesh");
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testing Ray class
@@ -64,4 +65,32 @@ public class RayTests {
                 "Closest point is the last point");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link primitives.Ray#generateBeamOfRays(Vector, double, double, int, Sampler)}.
+     */
+    @Test
+    void testGenerateBeamOfRays() {
+        final Point head = new Point(0, 0, 1);
+        final Ray ray = new Ray(head, new Vector(0, 0, 1));
+        final Vector n = new Vector(0, 0, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: All the rays hit the target circle
+        List<Ray> beam = ray.generateBeamOfRays(n, 1, 10, 20, Sampler.JITTERED);
+        assertEquals(20, beam.size(), "Number of rays");
+        for (Ray r : beam) {
+            Point target = r.getPoint(10 / r.getDirection().getZ());
+            assertTrue(Math.hypot(target.getX(), target.getY()) <= 1 + 1e-10, "Ray outside the circle");
+            assertEquals(head, r.getHead(), "Head of the beam rays");
+        }
+        //TC02: The rays on the other side of the surface are left out
+        assertTrue(ray.generateBeamOfRays(new Vector(1, 0, 0.01), 10, 1, 100, Sampler.HALTON).size() < 100,
+                "Rays behind the surface");
+
+        // =============== Boundary Values Tests ==================
+        //TC03: A single ray or no radius is the ray itself
+        assertEquals(List.of(ray), ray.generateBeamOfRays(n, 1, 10, 1, Sampler.JITTERED), "Single ray");
+        assertEquals(List.of(ray), ray.generateBeamOfRays(n, 0, 10, 20, Sampler.JITTERED), "Zero radius");
+    }
+}
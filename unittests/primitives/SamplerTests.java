@@ -0,0 +1,95 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the beam samplers
+ */
+class SamplerTests {
+
+    /**
+     * Checks that all the points are inside the unit disk
+     *
+     * @param points the points
+     * @return true if they are all inside
+     */
+    private static boolean inDisk(double[] points) {
+        for (int i = 0; i < points.length; i += 2)
+            if (points[i] * points[i] + points[i + 1] * points[i + 1] > 1 + 1e-10) return false;
+        return true;
+    }
+
+    /**
+     * Test method for {@link primitives.Sampler#sampleDisk(int)}.
+     */
+    @Test
+    void testSampleDisk() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Every sampler gives points in the disk, the rings sampler one point less
+        for (Sampler sampler : new Sampler[]{Sampler.JITTERED, Sampler.HALTON, Sampler.BLUE_NOISE}) {
+            double[] points = sampler.sampleDisk(30);
+            assertEquals(60, points.length, "Number of points");
+            assertTrue(inDisk(points), "Points in the disk");
+        }
+        double[] rings = Sampler.RINGS.sampleDisk(30);
+        assertEquals(58, rings.length, "Number of ring points");
+        assertTrue(inDisk(rings), "Ring points in the disk");
+
+        // TC02: The jittered grid puts a quarter of the points in every quadrant
+        double[] jittered = Sampler.JITTERED.sampleDisk(16);
+        int[] quadrants = new int[4];
+        for (int i = 0; i < jittered.length; i += 2)
+            ++quadrants[(jittered[i] > 0 ? 0 : 1) + (jittered[i + 1] > 0 ? 0 : 2)];
+        assertArrayEquals(new int[]{4, 4, 4, 4}, quadrants, "Stratified quadrants");
+
+        // TC03: Blue noise points keep a distance from each other
+        double[] blue = Sampler.BLUE_NOISE.sampleDisk(64);
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < blue.length; i += 2)
+            for (int j = i + 2; j < blue.length; j += 2)
+                minDistance = Math.min(minDistance, Math.hypot(blue[i] - blue[j], blue[i + 1] - blue[j + 1]));
+        assertTrue(minDistance > 0.1, "Blue noise spacing");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A single point
+        assertEquals(2, Sampler.JITTERED.sampleDisk(1).length, "Single jittered point");
+        assertEquals(2, Sampler.HALTON.sampleDisk(1).length, "Single Halton point");
+        assertEquals(0, Sampler.RINGS.sampleDisk(1).length, "No ring points");
+    }
+
+    /**
+     * Test method for {@link primitives.HaltonSampler#radicalInverse(int, int)}.
+     */
+    @Test
+    void testRadicalInverse() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Base 2 and base 3
+        assertEquals(0.625, HaltonSampler.radicalInverse(5, 2), 1e-12, "5 in base 2");
+        assertEquals(7d / 9, HaltonSampler.radicalInverse(5, 3), 1e-12, "5 in base 3");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Zero
+        assertEquals(0, HaltonSampler.radicalInverse(0, 2), "Zero");
+    }
+
+    /**
+     * Test method for {@link primitives.Sampler#toDisk(double, double, double[], int)}.
+     */
+    @Test
+    void testToDisk() {
+        double[] points = new double[2];
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The middle of a side of the square goes to the edge of the disk
+        Sampler.toDisk(1, 0.5, points, 0);
+        assertEquals(1, points[0], 1e-12, "Edge x");
+        assertEquals(0, points[1], 1e-12, "Edge y");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: The center of the square is the center of the disk
+        Sampler.toDisk(0.5, 0.5, points, 0);
+        assertEquals(0, points[0], 1e-12, "Center x");
+        assertEquals(0, points[1], 1e-12, "Center y");
+    }
+}
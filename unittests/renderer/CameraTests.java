@@ -1,11 +1,35 @@
 package renderer;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import geometries.Sphere;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Testing Camera Class
  *
@@ -62,4 +86,369 @@ class CameraTests {
         assertEquals(new Ray(Point.ZERO, new Vector(2, -2, -10)),
                 camera2.constructRay(3, 3, 0, 0), badRay);
     }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#renderImage()} with executors.
+     */
+    @Test
+    void testRenderImageExecutor() {
+        final Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(new Scene("Test")))
+                .setImageWriter(new ImageWriter("Test", 10, 10))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(8, 8)
+                .setMultithreading(2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: A camera renders twice with its own threads
+        Camera camera = builder.build();
+        assertDoesNotThrow(() -> camera.renderImage().renderImage(), "Render twice");
+
+        // EP02: Cameras share a fixed pool
+        try (ExecutorService pool = Executors.newFixedThreadPool(2)) {
+            Camera pixels = builder.setExecutor(pool).build();
+            Camera tiles = builder.setExecutor(pool).setTileSize(4).build();
+            assertDoesNotThrow(() -> pixels.renderImage().renderImage(), "Shared pool pixels");
+            assertDoesNotThrow(() -> tiles.renderImage(), "Shared pool tiles");
+        }
+
+        // EP03: Virtual thread per task
+        try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            assertDoesNotThrow(() -> builder.setExecutor(virtual).setTileSize(3).build().renderImage(),
+                    "Virtual threads");
+        }
+    }
+
+    /**
+     * Creates a ray tracer which records a random number for every traced ray
+     *
+     * @param values the map to record into, by the rays
+     * @return the ray tracer
+     */
+    private static RayTracerBase randomRecorder(Map<String, Double> values) {
+        return new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                values.put(ray.toString(), Util.random(0, 1));
+                return Color.BLACK;
+            }
+        };
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#renderImage()} with seeded random generators.
+     */
+    @Test
+    void testRenderImageSeed() {
+        final Camera.Builder builder = Camera.getBuilder()
+                .setImageWriter(new ImageWriter("Test", 10, 10))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(8, 8);
+        final Map<String, Double> serial = new ConcurrentHashMap<>();
+        final Map<String, Double> parallel = new ConcurrentHashMap<>();
+        final Map<String, Double> other = new ConcurrentHashMap<>();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same seed gives the same numbers with and without threads
+        builder.setSeed(42).setRayTracer(randomRecorder(serial)).build().renderImage();
+        builder.setRayTracer(randomRecorder(parallel)).setMultithreading(3).setTileSize(3).build().renderImage();
+        assertEquals(100, serial.size(), "All the pixels");
+        assertEquals(serial, parallel, "Seeded renderings");
+        // TC02: Another seed gives other numbers
+        builder.setSeed(7).setRayTracer(randomRecorder(other)).setMultithreading(0).build().renderImage();
+        assertNotEquals(serial, other, "Another seed");
+        // TC03: The rendering thread is left unseeded
+        assertInstanceOf(ThreadLocalRandom.class, Util.getRandom(), "Unseeded after rendering");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: Neighbour pixels don't draw shifted copies of a sequence - no number is drawn twice
+        final Map<String, long[]> sequences = new ConcurrentHashMap<>();
+        builder.setSeed(42).setRayTracer(new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                long[] sequence = new long[8];
+                for (int i = 0; i < sequence.length; ++i)
+                    sequence[i] = Util.getRandom().nextLong();
+                sequences.put(ray.toString(), sequence);
+                return Color.BLACK;
+            }
+        }).build().renderImage();
+        final Set<Long> drawn = new HashSet<>();
+        for (long[] sequence : sequences.values())
+            for (long value : sequence)
+                drawn.add(value);
+        assertEquals(8 * 100, drawn.size(), "Distinct numbers of the pixels");
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#renderProgressive(Camera.PassListener)}.
+     */
+    @Test
+    void testRenderProgressive() {
+        final Camera.Builder builder = Camera.getBuilder()
+                .setImageWriter(new ImageWriter("Test", 4, 4))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(8, 8);
+        final RayTracerBase noise = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                return new Color(Util.random(0, 200), 0, 0);
+            }
+        };
+        final List<Double> changes = new ArrayList<>();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: All the passes are rendered, the changes shrink
+        builder.setRayTracer(noise).setProgressive(20, 0, 0).build()
+                .renderProgressive((passes, change) -> changes.add(change));
+        assertEquals(20, changes.size(), "Number of passes");
+        assertEquals(Double.POSITIVE_INFINITY, changes.getFirst(), "No change after the first pass");
+        assertTrue(changes.get(1) > changes.getLast(), "Converging passes");
+        // TC02: The passes stop when they don't change the image
+        changes.clear();
+        builder.setRayTracer(new SimpleRayTracer(new Scene("Test"))).setProgressive(20, 0, 0.01)
+                .setMultithreading(2).build().renderProgressive((passes, change) -> changes.add(change));
+        assertEquals(List.of(Double.POSITIVE_INFINITY, 0d), changes, "Converged after two passes");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: The time limit is over after the first pass
+        changes.clear();
+        builder.setRayTracer(noise).setProgressive(20, 1e-9, 0).setMultithreading(0).build()
+                .renderProgressive((passes, change) -> changes.add(change));
+        assertEquals(1, changes.size(), "A single pass within the time");
+        // TC04: Illegal limits
+        assertThrows(IllegalArgumentException.class, () -> builder.setProgressive(0, 0, 0), "No passes");
+        assertThrows(IllegalArgumentException.class, () -> builder.setProgressive(1, -1, 0), "Negative time");
+        assertThrows(IllegalArgumentException.class, () -> builder.setProgressive(1, 0, -1), "Negative convergence");
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera.Builder#setAntiAliasing(int, double)}.
+     */
+    @Test
+    void testAntiAliasing() {
+        final Camera.Builder builder = Camera.getBuilder()
+                .setImageWriter(new ImageWriter("Test", 10, 10))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(10, 10);
+        final AtomicInteger rays = new AtomicInteger();
+        //white to the right of x = 0.3 on the view plane, inside the 6th column of pixels (grid x = 2.4 of 8)
+        final RayTracerBase edge = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                rays.incrementAndGet();
+                return ray.getDirection().getX() / -ray.getDirection().getZ() > 0.03 ? new Color(255, 255, 255) : Color.BLACK;
+            }
+        };
+        final RayTracerBase flat = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                rays.incrementAndGet();
+                return Color.BLACK;
+            }
+        };
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A flat image is traced at the corners of the pixels only
+        builder.setRayTracer(flat).setAntiAliasing(3, 1).build().renderImage();
+        assertEquals(400, rays.get(), "Four rays per flat pixel");
+        // TC02: The squares of the edge pixels which the edge crosses are subdivided -
+        // 5 more grid points in the pixel, 9 in its left half, then 17 along the edge
+        rays.set(0);
+        builder.setRayTracer(edge).build().renderImage();
+        assertEquals(400 + 10 * (5 + 9 + 17), rays.get(), "Subdivided edge pixels");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: No anti-aliasing
+        rays.set(0);
+        builder.setAntiAliasing(0, 1).build().renderImage();
+        assertEquals(100, rays.get(), "A ray per pixel");
+        // TC04: The deepest subdivision of a flat image still traces the corners only
+        rays.set(0);
+        builder.setRayTracer(flat).setAntiAliasing(8, 1).build().renderImage();
+        assertEquals(400, rays.get(), "Four rays per flat pixel at the deepest subdivision");
+        // TC05: Illegal arguments
+        assertThrows(IllegalArgumentException.class, () -> builder.setAntiAliasing(-1, 1), "Negative depth");
+        assertThrows(IllegalArgumentException.class, () -> builder.setAntiAliasing(9, 1), "Too deep");
+        assertThrows(IllegalArgumentException.class, () -> builder.setAntiAliasing(1, -1), "Negative threshold");
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera.Builder#setRayBudget(int)}.
+     */
+    @Test
+    void testRayBudget() {
+        final Camera.Builder builder = Camera.getBuilder()
+                .setImageWriter(new ImageWriter("Test", 10, 10))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(10, 10);
+        //the rays spent by the pixels, by their budgets
+        final Map<RayBudget, Integer> spent = new IdentityHashMap<>();
+        //white to the right of x = 0.3 on the view plane, as in the anti-aliasing test - every traced ray
+        //spends up to three rays, as if it was reflected twice
+        final RayTracerBase edge = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                return ray.getDirection().getX() / -ray.getDirection().getZ() > 0.03 ? new Color(255, 255, 255) : Color.BLACK;
+            }
+
+            @Override
+            public Color traceRay(Ray ray, RayBudget budget) {
+                int rays = Math.min(budget.getAvailable(), 3);
+                budget.spend(rays);
+                spent.merge(budget, rays, Integer::sum);
+                return traceRay(ray);
+            }
+        };
+        builder.setRayTracer(edge).setAntiAliasing(3, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Without a budget the edge pixels trace 35 grid points of three rays each
+        builder.build().renderImage();
+        assertEquals(100, spent.size(), "A budget per pixel");
+        assertEquals(10, spent.values().stream().filter(rays -> rays == 3 * (4 + 5 + 9 + 17)).count(),
+                "Subdivided edge pixels");
+        // TC02: All the rays of a pixel, in all its grid points, are spent from its budget -
+        // the edge pixels stop subdividing when the budget runs out
+        spent.clear();
+        builder.setRayBudget(20).build().renderImage();
+        assertEquals(100, spent.size(), "A budget per pixel");
+        assertTrue(spent.values().stream().allMatch(rays -> rays <= 20), "Pixels within the budget");
+        assertEquals(10, spent.values().stream().filter(rays -> rays == 20).count(), "Edge pixels at the budget");
+        assertEquals(90, spent.values().stream().filter(rays -> rays == 12).count(), "Flat pixels");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: A budget of the pixel's corners only
+        spent.clear();
+        builder.setRayBudget(4).build().renderImage();
+        assertTrue(spent.values().stream().allMatch(rays -> rays == 4), "A ray per corner");
+        // TC04: The progressive passes share the budget of a pixel, keeping a ray for each of the next passes
+        final int[] pixels = new int[100];
+        builder.setRayBudget(6).setAntiAliasing(0, 1).setProgressive(4, 0, 0).setRayTracer(new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                return Color.BLACK;
+            }
+
+            @Override
+            public Color traceRay(Ray ray, RayBudget budget) {
+                int rays = Math.min(budget.getAvailable(), 3);
+                budget.spend(rays);
+                Vector direction = ray.getDirection();
+                int column = (int) Math.floor(10 * direction.getX() / -direction.getZ() + 5);
+                int row = (int) Math.floor(-10 * direction.getY() / -direction.getZ() + 5);
+                pixels[row * 10 + column] += rays;
+                return Color.BLACK;
+            }
+        }).build().renderProgressive((passes, change) -> {
+        });
+        assertTrue(Arrays.stream(pixels).allMatch(rays -> rays == 6), "The budget spent along the passes");
+        // TC05: Illegal budgets
+        assertThrows(IllegalArgumentException.class, () -> builder.setRayBudget(-1), "Negative budget");
+        assertThrows(IllegalArgumentException.class, () -> builder.setAntiAliasing(3, 1).setRayBudget(3).build(),
+                "Fewer rays than corners");
+        assertThrows(IllegalStateException.class, () -> builder.setAntiAliasing(0, 1).setRayBudget(3).build()
+                .renderProgressive((passes, change) -> {
+                }), "Fewer rays than passes");
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera.Builder#setAovBuffers(AovBuffers)}.
+     *
+     * @throws IOException if the buffer files can't be read
+     */
+    @Test
+    void testAovBuffers() throws IOException {
+        final Scene scene = new Scene("Test");
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 20));
+        final AtomicInteger rays = new AtomicInteger();
+        final SimpleRayTracer counter = new SimpleRayTracer(scene) {
+            @Override
+            public Color traceRay(Ray ray, RayBudget budget) {
+                rays.incrementAndGet();
+                return super.traceRay(ray, budget);
+            }
+
+            @Override
+            public Color traceRay(Ray ray, RayBudget budget, AovBuffers aov, int x, int y) {
+                rays.incrementAndGet();
+                return super.traceRay(ray, budget, aov, x, y);
+            }
+        };
+        final AovBuffers aov = new AovBuffers("aovCameraTest", 10, 10);
+        final Camera.Builder builder = Camera.getBuilder()
+                .setImageWriter(new ImageWriter("Test", 10, 10))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(10, 10)
+                .setRayTracer(counter)
+                .setAovBuffers(aov);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The buffers are filled by the pixels' rays, without extra rays
+        builder.build().renderImage();
+        assertEquals(100, rays.get(), "A ray per pixel");
+        assertEquals(1, aov.getObjectId(5, 5), "Sphere in the middle");
+        assertEquals(81, aov.getDepth(5, 5), 0.1, "Sphere front, off the axis by half a pixel");
+        assertEquals(0, aov.getObjectId(0, 0), "Background in the corner");
+        aov.writeToFiles();
+        assertEquals("Pf\n10 10\n-1.0\n".length() + 4 * 100,
+                Files.size(Path.of(ImageWriter.FOLDER_PATH, "aovCameraTest_depth.pfm")), "Depth file size");
+        assertEquals("PF\n10 10\n-1.0\n".length() + 12 * 100,
+                Files.size(Path.of(ImageWriter.FOLDER_PATH, "aovCameraTest_normal.pfm")), "Normal file size");
+        // TC02: Anti-aliasing traces the centers of the flat pixels as well
+        rays.set(0);
+        builder.setAntiAliasing(3, 1000).build().renderImage();
+        assertEquals(500, rays.get(), "Four corners and a center per pixel");
+        assertEquals(1, aov.getObjectId(5, 5), "Sphere in the middle, anti-aliased");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: Buffers of another size
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.setAovBuffers(new AovBuffers("Test", 10, 9)).build(), "Buffers of another size");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderProgressive(Camera.PassListener)} and
+     * {@link renderer.Camera#printGrid(int, Color)} with a streamed image.
+     */
+    @Test
+    void testStreamedImage() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Camera camera = Camera.getBuilder()
+                .setImageWriter(new ImageWriter("Test", 4, 4, Channels.newChannel(out)))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10)
+                .setVpSize(8, 8)
+                .setRayTracer(new SimpleRayTracer(new Scene("Test")))
+                .build();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The progressive rendering rewrites the pixels, it is rejected before writing any
+        assertThrows(IllegalStateException.class, () -> camera.renderProgressive(null), "Progressive rendering");
+        // TC02: The grid rewrites the pixels, it is rejected before writing any
+        assertThrows(IllegalStateException.class, () -> camera.printGrid(2, Color.BLACK), "Grid printing");
+        assertEquals(0, out.size(), "Nothing streamed by the rejected calls");
+        // TC03: A single pass renders the streamed image
+        assertDoesNotThrow(() -> camera.renderImage().writeToImage(), "Single pass");
+        assertTrue(out.size() > 0, "Streamed image");
+    }
 }
@@ -1,9 +1,25 @@
 package renderer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import primitives.Color;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static java.awt.Color.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test for ImageWriter class
@@ -33,4 +49,137 @@ class ImageWriterTests {
         //producing the image file
         imageWriter.writeToImage();
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for
+     * {@link ImageWriter#writeToPfm()}, {@link ImageWriter#writeToHdr()} and {@link ImageWriter#writeToExr()}.
+     *
+     * @throws IOException if the files can't be read
+     */
+    @Test
+    void testWriteToHdrFiles() throws IOException {
+        final Path folder = Path.of(System.getProperty("user.dir"), "images");
+        //a bright pixel (twice the full color) left of a dark one
+        ImageWriter imageWriter = new ImageWriter("hdrTest", 2, 1, true);
+        imageWriter.writePixel(0, 0, new Color(510, 255, 0));
+        imageWriter.writePixel(1, 0, Color.BLACK);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The float map keeps the bright pixel
+        imageWriter.writeToPfm();
+        ByteBuffer pfm = ByteBuffer.wrap(Files.readAllBytes(folder.resolve("hdrTest.pfm")))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        String header = "PF\n2 1\n-1.0\n";
+        assertEquals(header, new String(pfm.array(), 0, header.length(), StandardCharsets.US_ASCII), "PFM header");
+        assertEquals(2f, pfm.getFloat(header.length()), "PFM red");
+        assertEquals(1f, pfm.getFloat(header.length() + 4), "PFM green");
+        // TC02: The RGBE file shares the exponent of the largest component
+        imageWriter.writeToHdr();
+        byte[] hdr = Files.readAllBytes(folder.resolve("hdrTest.hdr"));
+        String hdrHeader = "#?RADIANCE\nFORMAT=32-bit_rle_rgbe\n\n-Y 1 +X 2\n";
+        assertEquals(hdrHeader.length() + 8, hdr.length, "Two flat RGBE pixels");
+        int pixel = hdr.length - 8;
+        assertEquals(128, hdr[pixel] & 0xFF, "RGBE red mantissa");
+        assertEquals(64, hdr[pixel + 1] & 0xFF, "RGBE green mantissa");
+        assertEquals(130, hdr[pixel + 3] & 0xFF, "RGBE exponent");
+        assertEquals(0, hdr[pixel + 7] & 0xFF, "RGBE black");
+        // TC03: The OpenEXR scanline holds the B, G and R channels
+        imageWriter.writeToExr();
+        ByteBuffer exr = ByteBuffer.wrap(Files.readAllBytes(folder.resolve("hdrTest.exr")))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(20000630, exr.getInt(0), "EXR magic number");
+        int chunk = (int) exr.getLong(exr.limit() - 8 - 24 - 8);
+        assertEquals(exr.limit() - 8 - 24, chunk, "EXR offset table");
+        assertEquals(0f, exr.getFloat(chunk + 8), "EXR blue");
+        assertEquals(2f, exr.getFloat(chunk + 8 + 16), "EXR red");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A row wide enough for the run length encoding
+        ImageWriter wide = new ImageWriter("hdrWideTest", 20, 2, true);
+        for (int x = 0; x < 20; x++)
+            for (int y = 0; y < 2; y++)
+                wide.writePixel(x, y, new Color(255, 255, 255));
+        wide.writeToHdr();
+        byte[] encoded = Files.readAllBytes(folder.resolve("hdrWideTest.hdr"));
+        String wideHeader = "#?RADIANCE\nFORMAT=32-bit_rle_rgbe\n\n-Y 2 +X 20\n";
+        //every scanline is its start and a run of 20 for each of the four components
+        assertEquals(wideHeader.length() + 2 * (4 + 4 * 2), encoded.length, "Encoded scanlines");
+        assertEquals(128 + 20, encoded[wideHeader.length() + 4] & 0xFF, "Run of 20");
+    }
+
+    /**
+     * Test method for
+     * {@link ImageWriter#ImageWriter(String, int, int, Path)}.
+     *
+     * @param directory a temporary directory for the pixels file
+     * @throws IOException if the images can't be read
+     */
+    @Test
+    void testMappedPixels(@TempDir Path directory) throws IOException {
+        final Path folder = Path.of(System.getProperty("user.dir"), "images");
+        final int nX = 301, nY = 201, step = 50;
+        ImageWriter imageWriter = new ImageWriter("mappedTest", nX, nY, directory);
+        Color gridColor = new Color(MAGENTA);
+        Color bgColor = new Color(400, 100, 50);
+        for (int i = 0; i < nX; i++)
+            for (int j = 0; j < nY; j++)
+                imageWriter.writePixel(i, j, i % step == 0 || j % step == 0 ? gridColor : bgColor);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The PNG image is written from the mapped pixels
+        imageWriter.writeToImage();
+        BufferedImage image = ImageIO.read(folder.resolve("mappedTest.png").toFile());
+        assertEquals(MAGENTA.getRGB(), image.getRGB(0, 0), "Grid pixel");
+        assertEquals(new java.awt.Color(255, 100, 50).getRGB(), image.getRGB(nX - 2, nY - 2), "Clamped pixel");
+        // TC02: The float map is written from the mapped pixels
+        imageWriter.writeToPfm();
+        ByteBuffer pfm = ByteBuffer.wrap(Files.readAllBytes(folder.resolve("mappedTest.pfm")))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(1f, pfm.getFloat(pfm.limit() - 12), "Red of the top right grid pixel");
+    }
+
+    /**
+     * Test method for
+     * {@link ImageWriter#ImageWriter(String, int, int, java.nio.channels.WritableByteChannel)}.
+     *
+     * @throws IOException if the image can't be read
+     */
+    @Test
+    void testStreamedImage() throws IOException {
+        final int nX = 300, nY = 201, step = 50;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter imageWriter = new ImageWriter("streamTest", nX, nY, Channels.newChannel(out));
+        Color gridColor = new Color(MAGENTA);
+        Color bgColor = new Color(CYAN);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The first rows are streamed before the image is complete
+        for (int j = 0; j < nY / 2; j++)
+            for (int i = 0; i < nX; i++)
+                imageWriter.writePixel(i, j, i % step == 0 || j % step == 0 ? gridColor : bgColor);
+        assertTrue(out.size() > 0, "Streamed rows");
+        // TC02: The streamed image is complete after all the rows, in any order
+        for (int j = nY - 1; j >= nY / 2; j--)
+            for (int i = 0; i < nX; i++)
+                imageWriter.writePixel(i, j, i % step == 0 || j % step == 0 ? gridColor : bgColor);
+        imageWriter.writeToImage();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        for (int j = 0; j < nY; j++)
+            for (int i = 0; i < nX; i++)
+                assertEquals(i % step == 0 || j % step == 0 ? MAGENTA.getRGB() : CYAN.getRGB(), image.getRGB(i, j),
+                        "Pixel " + i + ", " + j);
+        // TC03: The streamed rows can't be written again, nor as another format
+        assertThrows(IllegalStateException.class, () -> imageWriter.writePixel(0, 0, gridColor), "Streamed row");
+        assertThrows(IllegalStateException.class, imageWriter::writeToPfm, "Streamed image as PFM");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: Rows which weren't written are black
+        out.reset();
+        ImageWriter partial = new ImageWriter("streamTest", 2, 2, Channels.newChannel(out));
+        partial.writePixel(0, 0, gridColor);
+        partial.writeToImage();
+        image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(MAGENTA.getRGB(), image.getRGB(0, 0), "Written pixel");
+        assertEquals(BLACK.getRGB(), image.getRGB(1, 1), "Missing pixel");
+    }
+}
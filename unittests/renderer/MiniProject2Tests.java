@@ -28,7 +28,11 @@ public class MiniProject2Tests {
         /**
          * Use BVH
          */
-        BVH
+        BVH,
+        /**
+         * Use BVH built with the surface area heuristic
+         */
+        SAH
     }
 
     /**
@@ -107,6 +111,9 @@ public class MiniProject2Tests {
             case BVH:
                 scene.geometries.setBVH();
                 break;
+            case SAH:
+                scene.geometries.setSAHBVH();
+                break;
             default:
                 break;
         }
@@ -173,4 +180,14 @@ public class MiniProject2Tests {
         testBVHAndThreadsAndGlossyRunningTime(BVHMode.BVH, true, isAffectGlossyOn, "BVH");
     }
 
+    /**
+     * Test with MT and SAH BVH
+     * multiple-threads    ON
+     * BVHMode             SAH
+     */
+    @Test
+    public void testSAH() {
+        testBVHAndThreadsAndGlossyRunningTime(BVHMode.SAH, true, isAffectGlossyOn, "SAH");
+    }
+
 }
@@ -0,0 +1,104 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.zip.Adler32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testing PngWriter class
+ */
+class PngWriterTests {
+
+    /**
+     * Test method for {@link PngWriter#write(Path, int, int, PngWriter.RowReader)}.
+     *
+     * @throws IOException if the image can't be written or read
+     */
+    @Test
+    void testWrite() throws IOException {
+        final Path folder = Path.of(System.getProperty("user.dir"), "images");
+        //a gradient with a sharp edge, so that the rows get different filters
+        final PngWriter.RowReader gradient = (y, rgb, offset) -> {
+            for (int x = 0; x < rgb.length / 3; ++x, offset += 3) {
+                rgb[offset] = (byte) (x < 300 ? x + y : 255);
+                rgb[offset + 1] = (byte) (x * y);
+                rgb[offset + 2] = (byte) y;
+            }
+        };
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An image of several strips reads back as written
+        final int nX = 600, nY = 1000;
+        PngWriter.write(folder.resolve("pngStripsTest.png"), nX, nY, gradient);
+        assertImage(ImageIO.read(folder.resolve("pngStripsTest.png").toFile()), nX, nY, gradient);
+
+        // =============== Boundary Values Tests ==================
+        // TC02: A single pixel
+        PngWriter.write(folder.resolve("pngPixelTest.png"), 1, 1, gradient);
+        assertImage(ImageIO.read(folder.resolve("pngPixelTest.png").toFile()), 1, 1, gradient);
+    }
+
+    /**
+     * Asserts an image has the pixels of a row reader
+     *
+     * @param image the image
+     * @param nX    number of pixels in a row
+     * @param nY    number of rows
+     * @param rows  the row reader
+     */
+    private static void assertImage(BufferedImage image, int nX, int nY, PngWriter.RowReader rows) {
+        assertEquals(nX, image.getWidth(), "Image width");
+        assertEquals(nY, image.getHeight(), "Image height");
+        byte[] rgb = new byte[3 * nX];
+        for (int y = 0; y < nY; ++y) {
+            rows.read(y, rgb, 0);
+            for (int x = 0; x < nX; ++x) {
+                int expected = (rgb[3 * x] & 0xFF) << 16 | (rgb[3 * x + 1] & 0xFF) << 8 | rgb[3 * x + 2] & 0xFF;
+                assertEquals(expected, image.getRGB(x, y) & 0xFFFFFF, "Pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link PngWriter#combineAdler(int, int, int)}.
+     */
+    @Test
+    void testCombineAdler() {
+        final byte[] data = new byte[200000];
+        for (int i = 0; i < data.length; ++i)
+            data[i] = (byte) (i * 31 + i / 7);
+        Adler32 whole = new Adler32();
+        whole.update(data);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Two parts combine into the checksum of the whole
+        final int split = 123457;
+        assertEquals((int) whole.getValue(), PngWriter.combineAdler(adler(data, 0, split),
+                adler(data, split, data.length - split), data.length - split), "Combined checksum");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: An empty first part
+        assertEquals((int) whole.getValue(), PngWriter.combineAdler(1, adler(data, 0, data.length), data.length),
+                "Empty first part");
+    }
+
+    /**
+     * Calculates the Adler-32 checksum of a part of an array
+     *
+     * @param data   the array
+     * @param offset the offset of the part
+     * @param length the length of the part
+     * @return the checksum
+     */
+    private static int adler(byte[] data, int offset, int length) {
+        Adler32 adler = new Adler32();
+        adler.update(data, offset, length);
+        return (int) adler.getValue();
+    }
+}
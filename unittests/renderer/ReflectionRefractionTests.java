@@ -54,6 +54,32 @@ public class ReflectionRefractionTests {
                 .writeToImage();
     }
 
+    /**
+     * Produce a picture of spheres over a glossy floor, sampled with a stratified beam and adaptive ray counts
+     */
+    @Test
+    public void glossyAdaptiveSampling() {
+        scene.geometries.add(
+                new Plane(new Point(0, 0, -50), Vector.Z).setEmission(new Color(20, 20, 20))
+                        .setMaterial(new Material().setKD(0.3).setKR(0.6).setBlurGlass(64, 10, 3)
+                                .setSampler(Sampler.JITTERED)),
+                new Sphere(new Point(-40, 0, -20), 30d).setEmission(new Color(RED))
+                        .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(100)),
+                new Sphere(new Point(40, 0, -20), 30d).setEmission(new Color(BLUE))
+                        .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(100)));
+        scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.1));
+        scene.lights.add(new PointLight(new Color(700, 700, 700), new Point(0, -100, 200)).setKL(0.0004));
+
+        cameraBuilder.setLocation(new Point(0, -800, 300)).setDirection(new Point(0, 0, -30), Vector.Z)
+                .setVpDistance(1000)
+                .setVpSize(200, 200)
+                .setRayTracer(new SimpleRayTracer(scene).setAdaptiveSampling(0.5))
+                .setImageWriter(new ImageWriter("glossyAdaptiveSampling", 300, 300))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
+
     /**
      * Produce a picture of a sphere lighted by a spot light
      */
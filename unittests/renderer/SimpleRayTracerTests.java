@@ -0,0 +1,168 @@
+package renderer;
+
+import geometries.Geometries;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing SimpleRayTracer class
+ */
+class SimpleRayTracerTests {
+
+    /**
+     * Creates a scene of a mirror floor reflecting a red sphere hanging above the camera
+     *
+     * @return the scene
+     */
+    private static Scene mirrorScene() {
+        Scene scene = new Scene("Mirror");
+        scene.geometries.add(
+                new Plane(Point.ZERO, Vector.Z).setMaterial(new Material().setKR(1)),
+                new Sphere(new Point(0, 0, 20), 2).setEmission(new Color(100, 0, 0)));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(Ray)}.
+     */
+    @Test
+    void testTraceRay() {
+        final Ray down = new Ray(new Point(0, 0, 10), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The mirror reflects the sphere
+        assertEquals(new Double3(100, 0, 0), new SimpleRayTracer(mirrorScene()).traceRay(down).getRgb(),
+                "Reflected sphere");
+        // TC02: The budget is spent on the traced ray, nothing is reflected
+        assertEquals(Double3.ZERO, new SimpleRayTracer(mirrorScene()).setRayBudget(1).traceRay(down).getRgb(),
+                "No budget for the reflection");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: Two facing perfect mirrors stop after the maximal number of levels
+        Scene mirrors = new Scene("Facing mirrors");
+        mirrors.geometries.add(
+                new Plane(Point.ZERO, Vector.Z).setEmission(new Color(10, 10, 10))
+                        .setMaterial(new Material().setKR(1)),
+                new Plane(new Point(0, 0, 5), Vector.Z).setEmission(new Color(10, 10, 10))
+                        .setMaterial(new Material().setKR(1)));
+        final Ray between = new Ray(new Point(0, 0, 2), new Vector(0, 0, -1));
+        assertEquals(new Double3(100, 100, 100), new SimpleRayTracer(mirrors).traceRay(between).getRgb(),
+                "Ten levels of mirrors");
+        // TC04: A budget just enough for the reflection
+        assertEquals(new Double3(100, 0, 0), new SimpleRayTracer(mirrorScene()).setRayBudget(2).traceRay(down).getRgb(),
+                "Budget of two rays");
+        // TC05: Illegal parameters
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(mirrorScene()).setRayBudget(0),
+                "Zero budget");
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(mirrorScene()).setAdaptiveSampling(-1),
+                "Negative threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(Ray, RayBudget)}.
+     */
+    @Test
+    void testTraceRayBudget() {
+        final Ray down = new Ray(new Point(0, 0, 10), new Vector(0, 0, -1));
+        final SimpleRayTracer tracer = new SimpleRayTracer(mirrorScene());
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The traced ray and its reflection are spent from the budget
+        final RayBudget budget = new RayBudget(5);
+        assertEquals(new Double3(100, 0, 0), tracer.traceRay(down, budget).getRgb(), "Reflected sphere");
+        assertEquals(3, budget.getRemaining(), "Two rays spent");
+        // TC02: The reserved rays aren't spent, nothing is reflected
+        final RayBudget reserved = new RayBudget(5).reserve(4);
+        assertEquals(Double3.ZERO, tracer.traceRay(down, reserved).getRgb(), "No budget for the reflection");
+        assertEquals(4, reserved.getRemaining(), "The reserved rays are left");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: The tracer's budget of a ray is lower than the given budget
+        final RayBudget unused = new RayBudget(5);
+        assertEquals(Double3.ZERO, new SimpleRayTracer(mirrorScene()).setRayBudget(1).traceRay(down, unused).getRgb(),
+                "The tracer's budget");
+        assertEquals(4, unused.getRemaining(), "A single ray spent");
+        // TC04: A miss spends its ray
+        final RayBudget miss = new RayBudget(1);
+        tracer.traceRay(new Ray(new Point(0, 0, 30), Vector.Z), miss);
+        assertEquals(0, miss.getRemaining(), "The missing ray spent");
+        // TC05: Illegal budget
+        assertThrows(IllegalArgumentException.class, () -> new RayBudget(0), "Zero budget");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setRussianRoulette(int)}.
+     */
+    @Test
+    void testRussianRoulette() {
+        Scene mirrors = new Scene("Facing half mirrors");
+        mirrors.geometries.add(
+                new Plane(Point.ZERO, Vector.Z).setEmission(new Color(10, 10, 10))
+                        .setMaterial(new Material().setKR(0.5)),
+                new Plane(new Point(0, 0, 5), Vector.Z).setEmission(new Color(10, 10, 10))
+                        .setMaterial(new Material().setKR(0.5)));
+        final Ray between = new Ray(new Point(0, 0, 2), new Vector(0, 0, -1));
+        final double expected = new SimpleRayTracer(mirrors).traceRay(between).getRgb().getD1();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The roulette keeps the average color
+        SimpleRayTracer roulette = new SimpleRayTracer(mirrors).setRussianRoulette(0);
+        double sum = 0;
+        final int count = 20000;
+        for (int i = 0; i < count; ++i)
+            sum += roulette.traceRay(between).getRgb().getD1();
+        assertEquals(expected, sum / count, 0.5, "Average color with the roulette");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: The roulette starts after all the levels
+        assertEquals(expected, new SimpleRayTracer(mirrors).setRussianRoulette(10).traceRay(between).getRgb().getD1(),
+                1e-10, "Roulette beyond the levels");
+        // TC03: Illegal levels
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(mirrors).setRussianRoulette(-2),
+                "Levels lower than -1");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(Ray, RayBudget, AovBuffers, int, int)}.
+     */
+    @Test
+    void testTraceRayAov() {
+        final Sphere sphere = new Sphere(new Point(0, 0, -10), 2);
+        sphere.setMaterial(new Material().setKD(new Double3(0.25, 0.5, 0.75))).setEmission(new Color(0, 50, 0));
+        final TriangleMesh mesh = new TriangleMesh(
+                new double[]{10, 0, -10, 14, 0, -10, 14, 4, -10, 10, 4, -10}, new int[]{0, 1, 2, 0, 2, 3});
+        Scene scene = new Scene("AOV");
+        scene.geometries.add(new Geometries(sphere), mesh);
+        final SimpleRayTracer tracer = new SimpleRayTracer(scene);
+        final AovBuffers aov = new AovBuffers("aovTest", 4, 1);
+        final RayBudget budget = new RayBudget(100);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A hit writes its distance, normal, albedo and geometry id and keeps the color
+        assertEquals(new Double3(0, 50, 0),
+                tracer.traceRay(new Ray(Point.ZERO, new Vector(0, 0, -1)), budget, aov, 0, 0).getRgb(), "Hit color");
+        assertEquals(8, aov.getDepth(0, 0), 1e-6, "Hit distance");
+        assertEquals(new Double3(0, 0, 1), aov.getNormal(0, 0), "Hit normal");
+        assertEquals(new Double3(0.25, 0.5, 0.75), aov.getAlbedo(0, 0), "Hit albedo");
+        assertEquals(1, aov.getObjectId(0, 0), "Sphere id");
+        // TC02: The faces of a mesh share the mesh's id
+        tracer.traceRay(new Ray(new Point(13, 1, 0), new Vector(0, 0, -1)), budget, aov, 1, 0);
+        tracer.traceRay(new Ray(new Point(11, 3, 0), new Vector(0, 0, -1)), budget, aov, 2, 0);
+        assertEquals(2, aov.getObjectId(1, 0), "Mesh id of the first face");
+        assertEquals(2, aov.getObjectId(2, 0), "Mesh id of the second face");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: A miss writes zeros and returns the background
+        assertEquals(scene.background.getRgb(),
+                tracer.traceRay(new Ray(Point.ZERO, new Vector(0, 0, 1)), budget, aov, 3, 0).getRgb(), "Background");
+        assertEquals(0, aov.getDepth(3, 0), "Miss distance");
+        assertEquals(Double3.ZERO, aov.getNormal(3, 0), "Miss normal");
+        assertEquals(0, aov.getObjectId(3, 0), "Background id");
+    }
+}
@@ -0,0 +1,166 @@
+package scene.io;
+
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.io.MeshLoader class
+ */
+public class MeshLoaderTests {
+    /**
+     * Direction down the z axis
+     */
+    private final Vector down = new Vector(0, 0, -1);
+
+    /**
+     * Writes a temporary file
+     *
+     * @param suffix  the file's extension
+     * @param content the file's content
+     * @return the file's path
+     * @throws IOException if the file can't be written
+     */
+    private static Path file(String suffix, byte[] content) throws IOException {
+        Path path = Files.createTempFile("mesh", suffix);
+        path.toFile().deleteOnExit();
+        return Files.write(path, content);
+    }
+
+    /**
+     * Writes a binary PLY file of a square from (0,0,2) to (1,1,2) as a single quad
+     * with extra vertex and face properties and an extra element
+     *
+     * @param order the byte order
+     * @return the file's path
+     * @throws IOException if the file can't be written
+     */
+    private static Path ply(ByteOrder order) throws IOException {
+        String header = "ply\n"
+                + "format " + (order == ByteOrder.LITTLE_ENDIAN ? "binary_little_endian" : "binary_big_endian") + " 1.0\n"
+                + "comment a square\n"
+                + "element vertex 4\n"
+                + "property float x\n"
+                + "property float y\n"
+                + "property double z\n"
+                + "property uchar red\n"
+                + "element face 1\n"
+                + "property uchar flags\n"
+                + "property list uchar int vertex_indices\n"
+                + "element edge 1\n"
+                + "property list ushort short vertices\n"
+                + "end_header\n";
+        byte[] text = header.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(text.length + 4 * 17 + 1 + 1 + 16 + 2 + 4).order(order);
+        buffer.put(text);
+        float[][] vertices = {{0, 0}, {1, 0}, {1, 1}, {0, 1}};
+        for (float[] vertex : vertices)
+            buffer.putFloat(vertex[0]).putFloat(vertex[1]).putDouble(2).put((byte) 200);
+        buffer.put((byte) 7).put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        buffer.putShort((short) 2).putShort((short) 0).putShort((short) 1);
+        return file(".ply", buffer.array());
+    }
+
+    /**
+     * Test method for {@link scene.io.MeshLoader#loadObj(Path)}.
+     */
+    @Test
+    public void testLoadObj() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Quad, comments and other statements
+        String obj = """
+                # a square and a triangle
+                mtllib square.mtl
+                o square
+                v 0 0 -0.5e1
+                v 1.0 0 -5
+                v 1 1. -5.000
+                v  0\t+1 -50e-1
+                vt 0 0
+                vn 0 0 1
+                usemtl white
+                f 1/1/1 2/1/1 3/1/1 4/1/1
+                v 0 0 -7
+                v 1 0 -7
+                v 0 1 -7
+                f -3//1 -2//1 -1//1 # counted back
+                """;
+        TriangleMesh mesh = MeshLoader.load(file(".obj", obj.getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(3, mesh.getFaceCount(), "Wrong number of faces");
+        assertEquals(new Point(0.75, 0.5, -5),
+                mesh.findClosestGeoIntersection(new Ray(new Point(0.75, 0.5, 0), down)).point,
+                "Wrong quad position");
+        assertEquals(new Point(0.2, 0.2, -7),
+                mesh.findClosestGeoIntersection(new Ray(new Point(0.2, 0.2, -6), down)).point,
+                "Wrong position of the negative index face");
+        // TC02: Malformed number
+        Path bad = file(".obj", "v 0 x 0\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.load(bad), "Loaded a malformed number");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Last line without an end of line, carriage returns
+        mesh = MeshLoader.load(file(".obj",
+                "v 0 0 0\r\nv 1 0 0\r\nv 0 1 0\r\nf 1 2 3".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(1, mesh.getFaceCount(), "Wrong number of faces without an end of line");
+        // TC12: Vertex index 0
+        Path zero = file(".obj", "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 0 1 2\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.load(zero), "Loaded vertex index 0");
+        // TC13: No faces
+        Path empty = file(".obj", "v 0 0 0\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.load(empty), "Loaded a mesh without faces");
+    }
+
+    /**
+     * Test method for {@link scene.io.MeshLoader#loadPly(Path)}.
+     */
+    @Test
+    public void testLoadPly() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Little endian
+        TriangleMesh mesh = MeshLoader.load(ply(ByteOrder.LITTLE_ENDIAN));
+        assertEquals(2, mesh.getFaceCount(), "Wrong number of faces");
+        assertEquals(new Point(0.25, 0.5, 2),
+                mesh.findClosestGeoIntersection(new Ray(new Point(0.25, 0.5, 3), down)).point,
+                "Wrong little endian position");
+        // TC02: Big endian
+        mesh = MeshLoader.load(ply(ByteOrder.BIG_ENDIAN));
+        assertEquals(new Point(0.75, 0.5, 2),
+                mesh.findClosestGeoIntersection(new Ray(new Point(0.75, 0.5, 3), down)).point,
+                "Wrong big endian position");
+        // TC03: ASCII file
+        Path ascii = file(".ply", "ply\nformat ascii 1.0\nend_header\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.load(ascii), "Loaded an ascii PLY file");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Truncated data
+        byte[] content = Files.readAllBytes(ply(ByteOrder.LITTLE_ENDIAN));
+        Path truncated = file(".ply", Arrays.copyOf(content, content.length - 10));
+        assertThrows(IllegalStateException.class, () -> MeshLoader.load(truncated), "Loaded a truncated file");
+    }
+
+    /**
+     * Test method for {@link scene.io.MeshLoader#load(Path)}.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Unknown extension
+        Path stl = file(".stl", new byte[1]);
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.load(stl), "Loaded an unknown file type");
+        // TC02: Missing file
+        Path missing = Path.of(stl + ".obj");
+        assertThrows(IllegalStateException.class, () -> MeshLoader.load(missing), "Loaded a missing file");
+    }
+}